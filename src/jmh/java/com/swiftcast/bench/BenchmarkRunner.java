@@ -0,0 +1,47 @@
+package com.swiftcast.bench;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시성 단계별로 처리량(ops/s)과 지연 분포(p50/p99, us)를 측정한다.
+ * GC 프로파일러의 gc.alloc.rate.norm 은 요청당 할당 바이트(클라이언트/스텁 포함)이다.
+ * <p>
+ * 사용법: mvn -Pbenchmark compile exec:exec -Dbenchmark.concurrency=1,16,64 -Dbenchmark.include=messages
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String concurrency = args.length > 0 ? args[0] : "1,16,64";
+        String include = args.length > 1 ? args[1] : ".*";
+
+        for (String level : concurrency.split(",")) {
+            int threads = Integer.parseInt(level.trim());
+            run(include, threads, Mode.Throughput, TimeUnit.SECONDS);
+            run(include, threads, Mode.SampleTime, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private static void run(String include, int threads, Mode mode, TimeUnit timeUnit) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ProxyPipelineBenchmark.class.getSimpleName() + "\\." + include)
+                .threads(threads)
+                .mode(mode)
+                .timeUnit(timeUnit)
+                .addProfiler(GCProfiler.class)
+                .result("target/jmh-" + mode.shortLabel() + "-t" + threads + ".json")
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(options).run();
+    }
+}
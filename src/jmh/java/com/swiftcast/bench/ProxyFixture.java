@@ -0,0 +1,62 @@
+package com.swiftcast.bench;
+
+import com.swiftcast.SwiftCastApplication;
+import com.swiftcast.model.Account;
+import com.swiftcast.proxy.ProxyServer;
+import com.swiftcast.service.AccountService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 벤치마크용 프록시: 임시 SQLite DB 로 Spring 컨텍스트를 띄우고 스텁 업스트림을 활성 계정으로 등록한다.
+ * ProxyServer 가 임의 포트로 리스닝하므로 실제 요청 경로(ProxyHandler 전 구간)를 그대로 탄다.
+ */
+final class ProxyFixture implements AutoCloseable {
+
+    private final StubUpstream upstream;
+    private final ConfigurableApplicationContext context;
+    private final ProxyServer server;
+
+    ProxyFixture(int outputTokens) throws IOException {
+        this.upstream = new StubUpstream(outputTokens);
+
+        Path dataDir = Files.createTempDirectory("swiftcast-bench");
+        this.context = new SpringApplicationBuilder(SwiftCastApplication.class)
+                .profiles(SwiftCastApplication.HEADLESS_PROFILE)
+                .logStartupInfo(false)
+                .properties(
+                        "swiftcast.server.host=127.0.0.1",
+                        "swiftcast.server.port=0",
+                        "spring.datasource.url=jdbc:sqlite:" + dataDir.resolve("bench.db")
+                                + "?journal_mode=WAL&synchronous=NORMAL&busy_timeout=5000",
+                        "swiftcast.usage.archive-dir=" + dataDir.resolve("archive"),
+                        "swiftcast.usage.journal-dir=" + dataDir.resolve("journal"),
+                        "swiftcast.pricing.file=" + dataDir.resolve("pricing.json"),
+                        "swiftcast.cache.directory=" + dataDir.resolve("cache"),
+                        "swiftcast.cache.enabled=false",
+                        // 같은 본문을 반복해서 보내므로 병합을 끄지 않으면 업스트림 호출이 측정되지 않는다
+                        "swiftcast.coalescing.enabled=false",
+                        "logging.level.com.swiftcast=WARN")
+                .run();
+
+        AccountService accountService = context.getBean(AccountService.class);
+        Account account = accountService.createAccount("bench-stub", upstream.baseUrl(), "sk-bench");
+        accountService.switchAccount(account.getId());
+
+        this.server = context.getBean(ProxyServer.class);
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getPort();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        upstream.close();
+    }
+}
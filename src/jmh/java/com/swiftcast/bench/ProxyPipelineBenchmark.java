@@ -0,0 +1,126 @@
+package com.swiftcast.bench;
+
+import com.swiftcast.metrics.LatencyHistogram;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProxyHandler 전 구간 벤치마크 (클라이언트 → 프록시 → 스텁 업스트림).
+ * <p>
+ * 동시성은 JMH 스레드 수로 조절한다 (BenchmarkRunner 가 1, 16, 64 … 로 반복 실행).
+ * 스트리밍 벤치마크는 클라이언트 기준 첫 SSE 청크까지의 시간(TTFT)을 따로 모아 trial 종료 시 출력한다.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+public class ProxyPipelineBenchmark {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    @Param({"1024", "65536", "524288"})
+    public int payloadBytes;
+
+    @Param({"256"})
+    public int outputTokens;
+
+    private ProxyFixture fixture;
+    private ConnectionProvider connections;
+    private HttpClient client;
+    private byte[] messageBody;
+    private byte[] streamingBody;
+    private LatencyHistogram ttft;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = new ProxyFixture(outputTokens);
+        connections = ConnectionProvider.builder("bench-client")
+                .maxConnections(1024)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        client = HttpClient.create(connections)
+                .baseUrl(fixture.baseUrl())
+                .headers(h -> h.set(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                        .set("anthropic-version", "2023-06-01"));
+        messageBody = requestBody(payloadBytes, false);
+        streamingBody = requestBody(payloadBytes, true);
+        ttft = new LatencyHistogram();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (ttft.getCount() > 0) {
+            System.out.printf("%nTTFT (payload=%d): p50 %.2f ms, p99 %.2f ms, n=%d%n",
+                    payloadBytes, ttft.percentileMillis(50), ttft.percentileMillis(99), ttft.getCount());
+        }
+        connections.dispose();
+        fixture.close();
+    }
+
+    @Benchmark
+    public int messages() {
+        return client.post()
+                .uri("/v1/messages")
+                .send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(messageBody)))
+                .responseSingle((response, body) -> body.asByteArray()
+                        .map(bytes -> bytes.length)
+                        .defaultIfEmpty(0))
+                .block(REQUEST_TIMEOUT);
+    }
+
+    @Benchmark
+    public long streamingMessages() {
+        long start = System.nanoTime();
+        long[] firstChunk = {0};
+        Long bytes = client.post()
+                .uri("/v1/messages")
+                .send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(streamingBody)))
+                .response((response, body) -> body.asByteArray()
+                        .doOnNext(chunk -> {
+                            if (firstChunk[0] == 0) {
+                                firstChunk[0] = System.nanoTime();
+                            }
+                        })
+                        .map(chunk -> (long) chunk.length))
+                .reduce(0L, Long::sum)
+                .block(REQUEST_TIMEOUT);
+        if (firstChunk[0] != 0) {
+            ttft.record(firstChunk[0] - start);
+        }
+        return bytes != null ? bytes : 0;
+    }
+
+    @Benchmark
+    public int models() {
+        return client.get()
+                .uri("/v1/models")
+                .responseSingle((response, body) -> body.asByteArray()
+                        .map(bytes -> bytes.length)
+                        .defaultIfEmpty(0))
+                .block(REQUEST_TIMEOUT);
+    }
+
+    private static byte[] requestBody(int payloadBytes, boolean stream) {
+        String prompt = "x".repeat(Math.max(0, payloadBytes - 160));
+        String json = "{\"model\":\"claude-sonnet-4-5\",\"max_tokens\":1024,\"stream\":" + stream + ","
+                + "\"messages\":[{\"role\":\"user\",\"content\":\"" + prompt + "\"}]}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
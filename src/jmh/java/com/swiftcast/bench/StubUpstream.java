@@ -0,0 +1,97 @@
+package com.swiftcast.bench;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Anthropic Messages API 를 흉내 내는 in-process Netty 업스트림.
+ * <p>
+ * "stream":true 요청에는 message_start → content_block_delta × N → message_delta → message_stop SSE 를,
+ * 그 외에는 usage 가 포함된 JSON 응답을 돌려준다. 응답은 미리 만들어 두어 스텁 자체의 비용을 최소화한다.
+ */
+final class StubUpstream implements AutoCloseable {
+
+    private final byte[] jsonResponse;
+    private final List<byte[]> streamEvents;
+    private final DisposableServer server;
+
+    StubUpstream(int outputTokens) {
+        this.jsonResponse = jsonResponse(outputTokens);
+        this.streamEvents = streamEvents(outputTokens);
+        this.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .post("/v1/messages", this::messages)
+                        .get("/v1/models", (request, response) -> response
+                                .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                                .sendString(Mono.just("{\"data\":[{\"id\":\"claude-sonnet-4-5\"}]}"))))
+                .bindNow();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    private Publisher<Void> messages(HttpServerRequest request, HttpServerResponse response) {
+        return request.receive().aggregate().asString(StandardCharsets.UTF_8)
+                .defaultIfEmpty("")
+                .flatMap(body -> {
+                    if (body.contains("\"stream\":true")) {
+                        // 이벤트마다 flush 하여 실제 스트리밍과 같은 청크 경계를 만든다
+                        Flux<ByteBuf> events = Flux.fromIterable(streamEvents).map(Unpooled::wrappedBuffer);
+                        return response.header(HttpHeaderNames.CONTENT_TYPE, "text/event-stream")
+                                .send(events, buffer -> true)
+                                .then();
+                    }
+                    return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                            .send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(jsonResponse)))
+                            .then();
+                });
+    }
+
+    private static byte[] jsonResponse(int outputTokens) {
+        String text = "token ".repeat(outputTokens);
+        String json = "{\"id\":\"msg_bench\",\"type\":\"message\",\"role\":\"assistant\","
+                + "\"model\":\"claude-sonnet-4-5\","
+                + "\"content\":[{\"type\":\"text\",\"text\":\"" + text + "\"}],"
+                + "\"stop_reason\":\"end_turn\","
+                + "\"usage\":{\"input_tokens\":1200,\"output_tokens\":" + outputTokens + "}}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<byte[]> streamEvents(int outputTokens) {
+        List<String> events = new ArrayList<>();
+        events.add(sse("message_start", "{\"type\":\"message_start\",\"message\":{\"id\":\"msg_bench\","
+                + "\"model\":\"claude-sonnet-4-5\",\"usage\":{\"input_tokens\":1200,\"output_tokens\":1}}}"));
+        for (int i = 0; i < outputTokens; i++) {
+            events.add(sse("content_block_delta", "{\"type\":\"content_block_delta\",\"index\":0,"
+                    + "\"delta\":{\"type\":\"text_delta\",\"text\":\"token \"}}"));
+        }
+        events.add(sse("message_delta", "{\"type\":\"message_delta\",\"delta\":{\"stop_reason\":\"end_turn\"},"
+                + "\"usage\":{\"output_tokens\":" + outputTokens + "}}"));
+        events.add(sse("message_stop", "{\"type\":\"message_stop\"}"));
+        return events.stream().map(e -> e.getBytes(StandardCharsets.UTF_8)).toList();
+    }
+
+    private static String sse(String event, String data) {
+        return "event: " + event + "\ndata: " + data + "\n\n";
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
@@ -1,43 +1,78 @@
 package com.swiftcast;
 
-import com.swiftcast.ui.MainWindow;
-import javafx.application.Application;
-import javafx.application.Platform;
+import com.swiftcast.config.SwiftCastRuntimeHints;
+import com.swiftcast.startup.StartupTimeline;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Arrays;
 
 @SpringBootApplication
-public class SwiftCastApplication extends Application {
+@ConfigurationPropertiesScan
+@EnableScheduling
+@ImportRuntimeHints(SwiftCastRuntimeHints.class)
+@Slf4j
+public class SwiftCastApplication {
+
+    public static final String HEADLESS_PROFILE = "headless";
 
-    private static ConfigurableApplicationContext springContext;
-    private static String[] args;
+    // 헤드리스 빌드에서도 컴파일되도록 이름으로만 참조 (네이티브 이미지 힌트는 SwiftCastRuntimeHints)
+    public static final String DESKTOP_LAUNCHER = "com.swiftcast.ui.SwiftCastFxApplication";
 
-    public static void main(String[] args) {
-        SwiftCastApplication.args = args;
-        // JavaFX 애플리케이션 시작
-        Application.launch(SwiftCastApplication.class, args);
+    public static void main(String[] args) throws Exception {
+        StartupTimeline.mark("main");
+
+        Class<?> desktop = isHeadless(args) ? null : findDesktopLauncher();
+        if (desktop == null) {
+            // 헤드리스: JavaFX 를 로드하지 않고 프록시/계정/사용량 파이프라인만 실행
+            System.setProperty("java.awt.headless", "true");
+            SpringApplication application = createApplication();
+            application.setAdditionalProfiles(HEADLESS_PROFILE);
+            application.run(args);
+            return;
+        }
+        desktop.getMethod("launchDesktop", String[].class).invoke(null, (Object) args);
     }
 
-    @Override
-    public void init() throws Exception {
-        // Spring Boot 컨텍스트 시작 (JavaFX 초기화 전)
-        springContext = SpringApplication.run(SwiftCastApplication.class, args);
+    public static SpringApplication createApplication() {
+        SpringApplication application = new SpringApplication(SwiftCastApplication.class);
+        // 시작 리포트용 단계 기록 (StartupReporter 가 출력 후 비움)
+        application.setApplicationStartup(new BufferingApplicationStartup(4096));
+        return application;
+    }
+
+    /**
+     * --headless 플래그, 또는 headless 프로필 (--spring.profiles.active, 시스템 속성, 환경 변수)
+     */
+    static boolean isHeadless(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--headless")
+                    || (arg.startsWith("--spring.profiles.active=") && hasHeadlessProfile(arg.substring(25)))) {
+                return true;
+            }
+        }
+        return hasHeadlessProfile(System.getProperty("spring.profiles.active"))
+                || hasHeadlessProfile(System.getenv("SPRING_PROFILES_ACTIVE"));
     }
 
-    @Override
-    public void start(javafx.stage.Stage primaryStage) throws Exception {
-        // JavaFX UI 초기화
-        MainWindow mainWindow = springContext.getBean(MainWindow.class);
-        mainWindow.start(primaryStage);
+    private static boolean hasHeadlessProfile(String profiles) {
+        return profiles != null && Arrays.stream(profiles.split(","))
+                .map(String::trim)
+                .anyMatch(HEADLESS_PROFILE::equals);
     }
 
-    @Override
-    public void stop() throws Exception {
-        // Spring 컨텍스트 종료
-        if (springContext != null) {
-            springContext.close();
+    private static Class<?> findDesktopLauncher() {
+        try {
+            return Class.forName(DESKTOP_LAUNCHER);
+        } catch (ClassNotFoundException | LinkageError e) {
+            // 헤드리스 빌드(-Dheadless)에는 ui 패키지와 JavaFX 가 없다
+            log.info("JavaFX desktop UI is not available, starting in headless mode");
+            return null;
         }
-        Platform.exit();
     }
 }
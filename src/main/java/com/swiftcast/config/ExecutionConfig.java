@@ -0,0 +1,29 @@
+package com.swiftcast.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 실행 모델: Netty 이벤트 루프와 JavaFX 스레드는 블로킹하지 않는다.
+ * SQLite/JPA 조회와 파일 I/O 는 모두 가상 스레드 실행기에서 실행하고,
+ * Reactor 에서는 blockingScheduler(subscribeOn), JavaFX 에서는 Task 로 연결한다.
+ */
+@Configuration
+public class ExecutionConfig {
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService blockingExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("swiftcast-blocking-", 0).factory());
+    }
+
+    @Bean
+    public Scheduler blockingScheduler(ExecutorService blockingExecutor) {
+        // 실행기 종료는 blockingExecutor 빈이 담당 (close 가 실행 중인 작업을 기다린다)
+        return Schedulers.fromExecutorService(blockingExecutor, "swiftcast-blocking");
+    }
+}
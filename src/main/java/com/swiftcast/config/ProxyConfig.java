@@ -1,14 +1,33 @@
 package com.swiftcast.config;
 
+import com.swiftcast.metrics.ProxyMetrics;
+import com.swiftcast.model.UsageExportFormat;
+import com.swiftcast.proxy.CacheStats;
 import com.swiftcast.proxy.ProxyHandler;
+import com.swiftcast.proxy.ResponseCache;
+import com.swiftcast.service.UsageExportService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
-import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import static org.springframework.web.reactive.function.server.RequestPredicates.*;
 
@@ -16,11 +35,33 @@ import static org.springframework.web.reactive.function.server.RequestPredicates
 @RequiredArgsConstructor
 public class ProxyConfig {
 
+    private static final MediaType PROMETHEUS_TEXT = MediaType.parseMediaType("text/plain; version=0.0.4; charset=utf-8");
+
     private final ProxyHandler proxyHandler;
+    private final ResponseCache responseCache;
+    private final ProxyMetrics proxyMetrics;
+    private final UsageExportService usageExportService;
+    private final ExecutorService blockingExecutor;
 
     @Bean
     public RouterFunction<ServerResponse> proxyRoutes() {
         return RouterFunctions.route()
+                // 로컬 관리용 엔드포인트 (업스트림으로 전달하지 않음)
+                .GET("/_swiftcast/cache/stats", request -> {
+                    CacheStats stats = responseCache.getStats();
+                    return ServerResponse.ok().bodyValue(Map.of(
+                            "hits", stats.hits(),
+                            "misses", stats.misses(),
+                            "hitRate", stats.hitRate(),
+                            "bytesSaved", stats.bytesSaved(),
+                            "memoryEntries", stats.memoryEntries(),
+                            "memoryBytes", stats.memoryBytes(),
+                            "diskBytes", stats.diskBytes()));
+                })
+                .GET("/_swiftcast/metrics", request -> ServerResponse.ok()
+                        .contentType(PROMETHEUS_TEXT)
+                        .bodyValue(proxyMetrics.scrape()))
+                .GET("/_swiftcast/usage/export", this::exportUsage)
                 .GET("/**", proxyHandler::handleProxy)
                 .POST("/**", proxyHandler::handleProxy)
                 .PUT("/**", proxyHandler::handleProxy)
@@ -29,8 +70,41 @@ public class ProxyConfig {
                 .build();
     }
 
-    @Bean
-    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> webServerFactoryCustomizer() {
-        return factory -> factory.setPort(8080);
+    /**
+     * 사용량 내보내기 (헤드리스 인스턴스에서 월말 보고용으로 수집). 로컬 클라이언트만 허용한다.
+     * 예) curl -o usage.swu 'http://localhost:8080/_swiftcast/usage/export?from=2025-01-01T00:00:00Z'
+     */
+    private Mono<ServerResponse> exportUsage(ServerRequest request) {
+        boolean local = request.remoteAddress()
+                .map(InetSocketAddress::getAddress)
+                .map(address -> address != null && address.isLoopbackAddress())
+                .orElse(false);
+        if (!local) {
+            return ServerResponse.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        UsageExportFormat format;
+        Instant from;
+        Instant to;
+        try {
+            format = UsageExportFormat.fromName(request.queryParam("format").orElse("binary"));
+            from = request.queryParam("from").map(Instant::parse).orElse(Instant.EPOCH);
+            to = request.queryParam("to").map(Instant::parse).orElseGet(Instant::now);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ServerResponse.badRequest().bodyValue(Map.of("error", e.getMessage()));
+        }
+
+        // JDBC 커서는 가상 스레드에서 읽고, 클라이언트가 받는 속도만큼만 버퍼를 만든다
+        return ServerResponse.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .headers(headers -> headers.setContentDisposition(ContentDisposition.attachment()
+                        .filename("swiftcast-usage." + format.getExtension()).build()))
+                .body(BodyInserters.fromDataBuffers(DataBufferUtils.outputStreamPublisher(out -> {
+                    try {
+                        usageExportService.export(out, format, from, to);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, DefaultDataBufferFactory.sharedInstance, blockingExecutor)));
     }
 }
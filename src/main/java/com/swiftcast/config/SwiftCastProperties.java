@@ -0,0 +1,201 @@
+package com.swiftcast.config;
+
+import com.swiftcast.routing.RoutingStrategy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "swiftcast")
+public class SwiftCastProperties {
+
+    private final Startup startup = new Startup();
+    private final Server server = new Server();
+    private final Request request = new Request();
+    private final Upstream upstream = new Upstream();
+    private final Usage usage = new Usage();
+    private final Routing routing = new Routing();
+    private final RateLimit rateLimit = new RateLimit();
+    private final Resilience resilience = new Resilience();
+    private final Cache cache = new Cache();
+    private final Coalescing coalescing = new Coalescing();
+    private final Pricing pricing = new Pricing();
+
+    // 빠른 시작: 파일 스냅샷으로 계정을 먼저 올리고 JPA 는 백그라운드에서 초기화
+    @Data
+    public static class Startup {
+        private boolean fastStart = true;
+        private String snapshotFile = System.getProperty("user.home") + "/.config/swiftcast/accounts-snapshot.json";
+        // 시작 단계별 타이밍 리포트 출력
+        private boolean report = true;
+    }
+
+    // 프록시 리스너 (Reactor Netty HttpServer) 설정
+    @Data
+    public static class Server {
+        private String host = "0.0.0.0";
+        private int port = 8080;
+        // 애플리케이션 시작 시 자동으로 리스닝 시작
+        private boolean autoStart = true;
+        // 0 이면 Reactor Netty 기본값 (CPU 코어 수, 최소 4)
+        private int workerThreads = 0;
+        private int selectThreads = 1;
+        private int backlog = 1024;
+        private Duration idleTimeout = Duration.ofSeconds(60);
+        // native epoll 사용 가능할 때만 적용 (Linux)
+        private boolean reusePort = false;
+        // 중지/재바인딩 시 처리 중인 스트림을 기다리는 최대 시간
+        private Duration drainTimeout = Duration.ofSeconds(30);
+    }
+
+    // 클라이언트 요청 본문 설정
+    @Data
+    public static class Request {
+        // 이보다 큰 본문은 413 으로 거절
+        private long maxBodyBytes = 32L * 1024 * 1024;
+        // 이 크기까지만 메모리에 보관 (장애 조치/캐시 가능), 넘으면 업스트림으로 바로 스트리밍
+        private int bufferLimitBytes = 1024 * 1024;
+    }
+
+    // 업스트림(Anthropic/GLM) 커넥션 풀 설정
+    @Data
+    public static class Upstream {
+        private int maxConnections = 200;
+        private int pendingAcquireMaxCount = 1000;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(30);
+        // 서버 측 keep-alive 타임아웃보다 짧게 유지해야 끊긴 커넥션 재사용을 피할 수 있다
+        private Duration maxIdleTime = Duration.ofSeconds(50);
+        private Duration maxLifeTime = Duration.ofMinutes(10);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private boolean keepAlive = true;
+        // https 업스트림에서 ALPN 으로 HTTP/2 협상 (실패 시 HTTP/1.1)
+        private boolean http2 = false;
+    }
+
+    // 사용량 수집 파이프라인 설정
+    @Data
+    public static class Usage {
+        private int queueCapacity = 65536;
+        private int batchSize = 500;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+        // 0 이하이면 원본 로그를 보존 (집계만 사용하려면 기간 설정)
+        private int retentionDays = 90;
+        private int retentionBatchSize = 5000;
+        private String archiveDir = System.getProperty("user.home") + "/.config/swiftcast/archive";
+        // 크래시 대비 선기록 저널 (DB 에 기록되면 세그먼트 삭제)
+        private boolean journalEnabled = true;
+        private String journalDir = System.getProperty("user.home") + "/.config/swiftcast/journal";
+        private int journalSegmentBytes = 8 * 1024 * 1024;
+        // 그룹 커밋: 이 간격마다 또는 이 개수만큼 쌓이면 fsync
+        private Duration journalSyncInterval = Duration.ofMillis(200);
+        private int journalSyncBatch = 1000;
+        // 복구한 이벤트 재기록을 이 횟수만큼 실패하면 dead-letter 파일로 옮긴다 (재시도 간격은 지수적으로 증가)
+        private int journalReplayAttempts = 5;
+    }
+
+    // 계정 풀 라우팅/장애 조치 설정
+    @Data
+    public static class Routing {
+        private RoutingStrategy strategy = RoutingStrategy.ACTIVE_ONLY;
+        // 이 상태 코드를 받으면 다른 계정으로 재시도 (529 = Anthropic overloaded)
+        private List<Integer> failoverStatuses = List.of(429, 500, 502, 503, 504, 529);
+        private int failureThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(30);
+        // 모델 추출 시 요청 본문을 들여다보는 최대 바이트 수
+        private int peekBytes = 16384;
+        // 위에서부터 처음 일치하는 규칙 적용
+        private List<Rule> rules = new ArrayList<>();
+    }
+
+    // 요청 내용 기반 라우팅 규칙 (지정한 조건을 모두 만족해야 일치)
+    @Data
+    public static class Rule {
+        private String name;
+        // 정확히 일치, 또는 "glm-*" 처럼 끝의 * 로 접두사 일치
+        private String model;
+        private String pathPrefix;
+        // "헤더명" (존재 여부) 또는 "헤더명=값"
+        private String header;
+        // 본문 크기(바이트 / 4)로 추정한 프롬프트 토큰 수 범위
+        private Long minPromptTokens;
+        private Long maxPromptTokens;
+        // 대상 계정 이름 또는 ID
+        private String account;
+        private String rewriteModel;
+    }
+
+    // 계정별 클라이언트 측 속도 제한 (한도는 계정 설정 또는 업스트림 응답 헤더)
+    @Data
+    public static class RateLimit {
+        private boolean enabled = true;
+        // 한도를 넘은 요청이 차례를 기다리는 최대 시간 (넘으면 429)
+        private Duration maxQueueWait = Duration.ofSeconds(30);
+        // anthropic-ratelimit-* / retry-after 응답 헤더에서 한도를 배운다
+        private boolean learnFromHeaders = true;
+    }
+
+    // 업스트림 타임아웃/재시도/헤지 요청 (연결 타임아웃은 upstream.connect-timeout)
+    @Data
+    public static class Resilience {
+        // 요청을 보낸 뒤 응답 헤더가 올 때까지 (비스트리밍 응답은 생성이 끝나야 헤더가 온다)
+        private Duration firstByteTimeout = Duration.ofMinutes(5);
+        // 응답 본문 전송까지 포함한 전체 시간 (0 이면 제한 없음)
+        private Duration totalTimeout = Duration.ofMinutes(15);
+        // 응답 헤더 전 실패, 또는 멱등 요청의 5xx 를 다시 보내는 최대 횟수 (계정 간 장애 조치는 별도)
+        private int maxRetries = 2;
+        private Duration backoffBase = Duration.ofMillis(200);
+        private Duration backoffMax = Duration.ofSeconds(2);
+        // 응답 헤더가 계정 응답 시간의 hedgePercentile 백분위보다 늦으면 두 번째 요청을 보낸다 (opt-in)
+        private boolean hedge = false;
+        private double hedgePercentile = 95;
+        private Duration hedgeMinDelay = Duration.ofMillis(500);
+        // 백분위를 믿을 수 있을 만큼 기록이 쌓이기 전에는 헤지하지 않는다
+        private long hedgeMinSamples = 100;
+        // 위에서부터 처음 일치하는 경로 규칙 적용 (지정하지 않은 값은 위 기본값)
+        private List<ResilienceRoute> routes = new ArrayList<>();
+    }
+
+    @Data
+    public static class ResilienceRoute {
+        private String pathPrefix;
+        private Duration firstByteTimeout;
+        private Duration totalTimeout;
+        private Integer maxRetries;
+        private Boolean hedge;
+    }
+
+    // 결정적 요청 응답 캐시 (opt-in)
+    @Data
+    public static class Cache {
+        private boolean enabled = false;
+        private boolean diskEnabled = true;
+        private String directory = System.getProperty("user.home") + "/.config/swiftcast/cache";
+        private long maxMemoryBytes = 64L * 1024 * 1024;
+        private long maxDiskBytes = 512L * 1024 * 1024;
+        private int maxEntryBytes = 4 * 1024 * 1024;
+        private int maxRequestBytes = 4 * 1024 * 1024;
+        private Duration ttl = Duration.ofHours(24);
+    }
+
+    // 동일 요청 병합 (single-flight)
+    @Data
+    public static class Coalescing {
+        private boolean enabled = true;
+        // 이 경로의 요청은 temperature 와 상관없이 병합 (응답이 요청에만 의존하는 읽기성 엔드포인트)
+        private List<String> paths = List.of("/v1/models", "/v1/messages/count_tokens");
+        // temperature 0 요청도 병합 (같은 생성 결과를 공유하게 되므로 기본 꺼짐)
+        private boolean deterministic = false;
+        private int maxRequestBytes = 4 * 1024 * 1024;
+    }
+
+    // 비용 계산 단가표 (기본값은 classpath pricing.json, 이 파일이 있으면 항목을 덧붙인다)
+    @Data
+    public static class Pricing {
+        private String file = System.getProperty("user.home") + "/.config/swiftcast/pricing.json";
+    }
+}
@@ -0,0 +1,32 @@
+package com.swiftcast.config;
+
+import com.swiftcast.SwiftCastApplication;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * GraalVM 네이티브 이미지용 힌트. 리플렉션으로 찾지 못하는 리소스와 타입을 등록한다.
+ */
+public class SwiftCastRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // JavaFX 스타일시트 (MainWindow 에서 getResource 로 로드)
+        hints.resources().registerPattern("styles.css");
+        // 기본 단가표 (CostEngine 에서 ClassPathResource 로 로드)
+        hints.resources().registerPattern("pricing.json");
+        // Hibernate SQLite 방언 (spring.jpa.database-platform 으로 이름만 지정됨)
+        hints.reflection().registerTypeIfPresent(classLoader,
+                "org.hibernate.community.dialect.SQLiteDialect",
+                hint -> hint.withMembers(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+        // 데스크톱 런처 (main 에서 Class.forName + launchDesktop 호출, JavaFX 가 public 생성자로 인스턴스화)
+        hints.reflection().registerTypeIfPresent(classLoader, SwiftCastApplication.DESKTOP_LAUNCHER,
+                hint -> hint.withMembers(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)
+                        .withMethod("launchDesktop", List.of(TypeReference.of(String[].class)), ExecutableMode.INVOKE));
+    }
+}
@@ -1,14 +1,53 @@
 package com.swiftcast.config;
 
+import com.swiftcast.metrics.ProxyMetrics;
+import io.netty.channel.ChannelOption;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class WebClientConfig {
 
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider upstreamConnectionProvider(SwiftCastProperties properties, ProxyMetrics metrics) {
+        SwiftCastProperties.Upstream upstream = properties.getUpstream();
+        return ConnectionProvider.builder("swiftcast-upstream")
+                .maxConnections(upstream.getMaxConnections())
+                .pendingAcquireMaxCount(upstream.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(upstream.getPendingAcquireTimeout())
+                .maxIdleTime(upstream.getMaxIdleTime())
+                .maxLifeTime(upstream.getMaxLifeTime())
+                .evictInBackground(upstream.getEvictInBackground())
+                .lifo()
+                // 호스트별 풀 상태를 /_swiftcast/metrics 로 노출 (Micrometer 불필요)
+                .metrics(true, metrics::getPoolRegistrar)
+                .build();
+    }
+
+    @Bean
+    public HttpClient upstreamHttpClient(ConnectionProvider upstreamConnectionProvider, SwiftCastProperties properties,
+                                         ProxyMetrics metrics) {
+        SwiftCastProperties.Upstream upstream = properties.getUpstream();
+        HttpClient httpClient = HttpClient.create(upstreamConnectionProvider)
+                .keepAlive(upstream.isKeepAlive())
+                .option(ChannelOption.SO_KEEPALIVE, upstream.isKeepAlive())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) upstream.getConnectTimeout().toMillis())
+                .metrics(true, metrics::getChannelRecorder);
+
+        if (upstream.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return httpClient;
+    }
+
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    public WebClient.Builder webClientBuilder(HttpClient upstreamHttpClient) {
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(upstreamHttpClient));
     }
 }
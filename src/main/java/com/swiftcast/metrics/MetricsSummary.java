@@ -0,0 +1,15 @@
+package com.swiftcast.metrics;
+
+/**
+ * UI 표시용 메트릭 요약
+ */
+public record MetricsSummary(
+        long requests,
+        int inFlight,
+        long errors,
+        double ttfbP50Millis,
+        double ttfbP99Millis,
+        long bytesIn,
+        long bytesOut
+) {
+}
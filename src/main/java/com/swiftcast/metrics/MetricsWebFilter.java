@@ -0,0 +1,35 @@
+package com.swiftcast.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * 프록시 요청마다 RequestMetrics 를 만들어 exchange 속성에 넣고, 응답 전송이 끝나면 기록한다.
+ * 로컬 관리용 엔드포인트(/_swiftcast)는 측정하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricsWebFilter implements WebFilter {
+
+    private final ProxyMetrics metrics;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (exchange.getRequest().getPath().value().startsWith("/_swiftcast/")) {
+            return chain.filter(exchange);
+        }
+        RequestMetrics requestMetrics = metrics.begin();
+        exchange.getAttributes().put(RequestMetrics.ATTRIBUTE, requestMetrics);
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    // 클라이언트가 끊은 경우 상태 코드가 없을 수 있다 (499: client closed request)
+                    requestMetrics.finish(status != null ? status.value() : 499);
+                });
+    }
+}
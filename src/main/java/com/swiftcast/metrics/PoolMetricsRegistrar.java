@@ -0,0 +1,28 @@
+package com.swiftcast.metrics;
+
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+
+/**
+ * 업스트림 호스트별 커넥션 풀이 생성/제거될 때 게이지를 등록/해제
+ */
+class PoolMetricsRegistrar implements ConnectionProvider.MeterRegistrar {
+
+    private final ProxyMetrics metrics;
+
+    PoolMetricsRegistrar(ProxyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics pool) {
+        metrics.pools.put(id, new ProxyMetrics.PoolGauge(poolName, String.valueOf(remoteAddress), pool));
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        metrics.pools.remove(id);
+    }
+}
@@ -0,0 +1,11 @@
+package com.swiftcast.metrics;
+
+import java.time.Instant;
+
+/**
+ * 실시간 대시보드에 보여줄 오류 한 건 (업스트림 4xx/5xx, 타임아웃, 스트림 중단 등)
+ *
+ * @param account 계정 이름 (계정을 고르기 전 실패면 null)
+ */
+public record ProxyError(Instant timestamp, String account, String path, int status, String message) {
+}
@@ -0,0 +1,284 @@
+package com.swiftcast.metrics;
+
+import org.springframework.stereotype.Component;
+import reactor.netty.channel.ChannelMetricsRecorder;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 프록시 핫패스 메트릭.
+ * <p>
+ * 계정/모델별 TTFB·전체 지연 히스토그램, 상태 코드별 오류 수, 처리 중 요청 수, 업스트림 연결 시간과 커넥션 풀 상태를
+ * lock-free 카운터(LongAdder, AtomicLongArray)로 모으고 Prometheus 텍스트 형식으로 내보낸다.
+ */
+@Component
+public class ProxyMetrics {
+
+    // Prometheus le 버킷 경계 (초)
+    private static final double[] BUCKET_SECONDS = {
+            0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300
+    };
+
+    // 모델 라벨 최대 개수. 넘치거나 모델명 형식이 아니면 "other" 로 묶는다 (클라이언트 입력이라 카디널리티 제한)
+    private static final int MAX_MODEL_LABELS = 64;
+    private static final int MAX_MODEL_LENGTH = 64;
+    private static final String OTHER_MODEL = "other";
+
+    private final ConcurrentMap<SeriesKey, Series> series = new ConcurrentHashMap<>();
+    private final Set<String> modelLabels = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Integer, LongAdder> errorsByStatus = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LatencyHistogram ttfb = new LatencyHistogram();
+    // 계정별 업스트림 응답 헤더 도착 시간 (헤지 지연 계산용)
+    private final ConcurrentMap<String, LatencyHistogram> upstreamResponseTime = new ConcurrentHashMap<>();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    final LatencyHistogram connectTime = new LatencyHistogram();
+    final LatencyHistogram tlsHandshakeTime = new LatencyHistogram();
+    final LongAdder upstreamBytesReceived = new LongAdder();
+    final LongAdder upstreamBytesSent = new LongAdder();
+    final LongAdder upstreamErrors = new LongAdder();
+    final ConcurrentMap<String, PoolGauge> pools = new ConcurrentHashMap<>();
+
+    /**
+     * 요청 측정 시작 (처리 중 요청 수 증가)
+     */
+    public RequestMetrics begin() {
+        inFlight.incrementAndGet();
+        return new RequestMetrics(this);
+    }
+
+    void record(String account, String model, int status, long ttfbNanos, long totalNanos,
+                long requestBytes, long responseBytes) {
+        inFlight.decrementAndGet();
+        requests.increment();
+        bytesIn.add(requestBytes);
+        bytesOut.add(responseBytes);
+        if (status >= 400) {
+            errors.increment();
+            errorsByStatus.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+
+        Series s = series.computeIfAbsent(
+                new SeriesKey(account != null ? account : "none", modelLabel(model)),
+                k -> new Series());
+        s.requests.increment();
+        s.bytesIn.add(requestBytes);
+        s.bytesOut.add(responseBytes);
+        s.total.record(totalNanos);
+        if (ttfbNanos >= 0) {
+            s.ttfb.record(ttfbNanos);
+            ttfb.record(ttfbNanos);
+        }
+    }
+
+    private String modelLabel(String model) {
+        if (model == null) {
+            return "unknown";
+        }
+        if (modelLabels.contains(model)) {
+            return model;
+        }
+        if (!isModelName(model) || modelLabels.size() >= MAX_MODEL_LABELS) {
+            return OTHER_MODEL;
+        }
+        modelLabels.add(model);
+        return model;
+    }
+
+    private static boolean isModelName(String model) {
+        if (model.isEmpty() || model.length() > MAX_MODEL_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < model.length(); i++) {
+            char c = model.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                    || c == '-' || c == '.' || c == '_' || c == ':' || c == '@')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 업스트림 요청을 보낸 뒤 응답 헤더가 올 때까지 걸린 시간
+     */
+    public void recordUpstreamResponse(String account, long nanos) {
+        upstreamResponseTime.computeIfAbsent(account, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * 계정의 업스트림 응답 시간 백분위 (밀리초). 기록이 minSamples 보다 적으면 -1.
+     */
+    public double upstreamResponsePercentileMillis(String account, double percentile, long minSamples) {
+        LatencyHistogram histogram = upstreamResponseTime.get(account);
+        if (histogram == null || histogram.getCount() < minSamples) {
+            return -1;
+        }
+        return histogram.percentileMillis(percentile);
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordHedge() {
+        hedged.increment();
+    }
+
+    public void recordHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    // 상태는 모두 ProxyMetrics 필드에 있으므로 생성자에서 this 를 넘기지 않고 요청 시점에 만든다
+    public ChannelMetricsRecorder getChannelRecorder() {
+        return new UpstreamChannelMetrics(this);
+    }
+
+    public ConnectionProvider.MeterRegistrar getPoolRegistrar() {
+        return new PoolMetricsRegistrar(this);
+    }
+
+    public MetricsSummary getSummary() {
+        return new MetricsSummary(requests.sum(), inFlight.get(), errors.sum(),
+                ttfb.percentileMillis(50), ttfb.percentileMillis(99), bytesIn.sum(), bytesOut.sum());
+    }
+
+    /**
+     * Prometheus text exposition format (0.0.4)
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+
+        gauge(out, "swiftcast_requests_in_flight", "Requests currently being proxied", inFlight.get());
+
+        header(out, "swiftcast_requests_total", "counter", "Proxied requests");
+        header(out, "swiftcast_request_bytes_total", "counter", "Request body bytes received from clients");
+        header(out, "swiftcast_response_bytes_total", "counter", "Response body bytes sent to clients");
+        Map<SeriesKey, Series> sorted = new TreeMap<>(series);
+        sorted.forEach((key, s) -> {
+            String labels = key.labels();
+            sample(out, "swiftcast_requests_total", labels, s.requests.sum());
+            sample(out, "swiftcast_request_bytes_total", labels, s.bytesIn.sum());
+            sample(out, "swiftcast_response_bytes_total", labels, s.bytesOut.sum());
+        });
+
+        header(out, "swiftcast_ttfb_seconds", "histogram", "Time to first response byte");
+        sorted.forEach((key, s) -> histogram(out, "swiftcast_ttfb_seconds", key.labels(), s.ttfb));
+        header(out, "swiftcast_request_duration_seconds", "histogram", "Total request duration");
+        sorted.forEach((key, s) -> histogram(out, "swiftcast_request_duration_seconds", key.labels(), s.total));
+
+        header(out, "swiftcast_errors_total", "counter", "Error responses by status code");
+        new TreeMap<>(errorsByStatus).forEach((status, count) ->
+                sample(out, "swiftcast_errors_total", "status=\"" + status + "\"", count.sum()));
+
+        header(out, "swiftcast_upstream_response_seconds", "histogram", "Time until upstream response headers");
+        new TreeMap<>(upstreamResponseTime).forEach((account, histogram) -> histogram(out,
+                "swiftcast_upstream_response_seconds", "account=\"" + escape(account) + "\"", histogram));
+        gauge(out, "swiftcast_upstream_retries_total", "Upstream attempts retried after backoff", retries.sum());
+        gauge(out, "swiftcast_hedged_requests_total", "Hedge requests sent after the hedge delay", hedged.sum());
+        gauge(out, "swiftcast_hedge_wins_total", "Hedge requests that answered first", hedgeWins.sum());
+
+        header(out, "swiftcast_upstream_connect_seconds", "histogram", "Upstream TCP connect time");
+        histogram(out, "swiftcast_upstream_connect_seconds", "", connectTime);
+        header(out, "swiftcast_upstream_tls_handshake_seconds", "histogram", "Upstream TLS handshake time");
+        histogram(out, "swiftcast_upstream_tls_handshake_seconds", "", tlsHandshakeTime);
+        gauge(out, "swiftcast_upstream_received_bytes_total", "Bytes read from upstream sockets",
+                upstreamBytesReceived.sum());
+        gauge(out, "swiftcast_upstream_sent_bytes_total", "Bytes written to upstream sockets",
+                upstreamBytesSent.sum());
+        gauge(out, "swiftcast_upstream_errors_total", "Upstream channel errors", upstreamErrors.sum());
+
+        header(out, "swiftcast_pool_active_connections", "gauge", "Connections acquired from the pool");
+        header(out, "swiftcast_pool_idle_connections", "gauge", "Idle connections in the pool");
+        header(out, "swiftcast_pool_total_connections", "gauge", "Allocated connections");
+        header(out, "swiftcast_pool_pending_acquire", "gauge", "Requests waiting for a connection");
+        header(out, "swiftcast_pool_max_connections", "gauge", "Maximum allocated connections");
+        pools.values().forEach(pool -> {
+            String labels = "pool=\"" + escape(pool.name()) + "\",remote=\"" + escape(pool.remote()) + "\"";
+            ConnectionPoolMetrics m = pool.metrics();
+            sample(out, "swiftcast_pool_active_connections", labels, m.acquiredSize());
+            sample(out, "swiftcast_pool_idle_connections", labels, m.idleSize());
+            sample(out, "swiftcast_pool_total_connections", labels, m.allocatedSize());
+            sample(out, "swiftcast_pool_pending_acquire", labels, m.pendingAcquireSize());
+            sample(out, "swiftcast_pool_max_connections", labels, m.maxAllocatedSize());
+        });
+        return out.toString();
+    }
+
+    private static void histogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (double le : BUCKET_SECONDS) {
+            long count = histogram.countAtOrBelow((long) (le * 1_000_000));
+            sample(out, name + "_bucket", prefix + "le=\"" + le + "\"", count);
+        }
+        long count = histogram.getCount();
+        sample(out, name + "_bucket", prefix + "le=\"+Inf\"", count);
+        out.append(name).append("_sum");
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(histogram.getSumSeconds()).append('\n');
+        sample(out, name + "_count", labels, count);
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, name.endsWith("_total") ? "counter" : "gauge", help);
+        sample(out, name, "", value);
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private record SeriesKey(String account, String model) implements Comparable<SeriesKey> {
+
+        String labels() {
+            return "account=\"" + escape(account) + "\",model=\"" + escape(model) + "\"";
+        }
+
+        @Override
+        public int compareTo(SeriesKey other) {
+            int c = account.compareTo(other.account);
+            return c != 0 ? c : model.compareTo(other.model);
+        }
+    }
+
+    private static final class Series {
+        final LongAdder requests = new LongAdder();
+        final LongAdder bytesIn = new LongAdder();
+        final LongAdder bytesOut = new LongAdder();
+        final LatencyHistogram ttfb = new LatencyHistogram();
+        final LatencyHistogram total = new LatencyHistogram();
+    }
+
+    record PoolGauge(String name, String remote, ConnectionPoolMetrics metrics) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.swiftcast.metrics;
+
+/**
+ * 요청 하나의 측정 컨텍스트. WebFilter 가 만들고 ProxyHandler 가 계정/모델/바이트 수를 채운다.
+ * <p>
+ * 한 요청 안에서는 응답 스트림의 신호가 순차적으로 오므로 필드는 volatile 로만 보호한다.
+ */
+public class RequestMetrics {
+
+    public static final String ATTRIBUTE = RequestMetrics.class.getName();
+
+    private final ProxyMetrics owner;
+    private final long startNanos;
+    private volatile String account;
+    private volatile String model;
+    private volatile long bytesIn;
+    private volatile long bytesOut;
+    private volatile long firstByteNanos;
+    private volatile boolean finished;
+
+    RequestMetrics(ProxyMetrics owner) {
+        this.owner = owner;
+        this.startNanos = System.nanoTime();
+    }
+
+    public void setAccount(String account) {
+        this.account = account;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public void setBytesIn(long bytesIn) {
+        this.bytesIn = bytesIn;
+    }
+
+    /**
+     * 클라이언트로 응답 청크를 쓸 때마다 호출. 첫 청크 시각이 TTFB 가 된다.
+     */
+    public void onBytesOut(int bytes) {
+        if (firstByteNanos == 0) {
+            firstByteNanos = System.nanoTime();
+        }
+        bytesOut += bytes;
+    }
+
+    /**
+     * 응답 전송이 끝났을 때 한 번만 기록한다.
+     */
+    public void finish(int status) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        long now = System.nanoTime();
+        long ttfb = firstByteNanos != 0 ? firstByteNanos - startNanos : -1;
+        owner.record(account, model, status, ttfb, now - startNanos, bytesIn, bytesOut);
+    }
+}
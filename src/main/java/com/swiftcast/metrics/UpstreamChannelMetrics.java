@@ -0,0 +1,48 @@
+package com.swiftcast.metrics;
+
+import reactor.netty.channel.ChannelMetricsRecorder;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+
+/**
+ * Reactor Netty 업스트림 채널 이벤트를 ProxyMetrics 로 전달 (Micrometer 없이 동작)
+ */
+class UpstreamChannelMetrics implements ChannelMetricsRecorder {
+
+    private final ProxyMetrics metrics;
+
+    UpstreamChannelMetrics(ProxyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void recordDataReceived(SocketAddress remoteAddress, long bytes) {
+        metrics.upstreamBytesReceived.add(bytes);
+    }
+
+    @Override
+    public void recordDataSent(SocketAddress remoteAddress, long bytes) {
+        metrics.upstreamBytesSent.add(bytes);
+    }
+
+    @Override
+    public void incrementErrorsCount(SocketAddress remoteAddress) {
+        metrics.upstreamErrors.increment();
+    }
+
+    @Override
+    public void recordTlsHandshakeTime(SocketAddress remoteAddress, Duration time, String status) {
+        metrics.tlsHandshakeTime.record(time.toNanos());
+    }
+
+    @Override
+    public void recordConnectTime(SocketAddress remoteAddress, Duration time, String status) {
+        metrics.connectTime.record(time.toNanos());
+    }
+
+    @Override
+    public void recordResolveAddressTime(SocketAddress remoteAddress, Duration time, String status) {
+        // DNS 조회 시간은 수집하지 않음
+    }
+}
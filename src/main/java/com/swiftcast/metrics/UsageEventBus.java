@@ -0,0 +1,59 @@
+package com.swiftcast.metrics;
+
+import com.swiftcast.model.UsageEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 프로세스 내부 사용량 이벤트 버스.
+ * <p>
+ * 프록시는 요청이 끝날 때마다 사용량/오류 이벤트를 발행하고, 구독자(실시간 대시보드 등)는 발행 스레드에서 바로 호출된다.
+ * 큐를 두지 않으므로 트래픽이 많아도 메모리가 늘지 않는 대신, 구독자는 카운터 증가처럼 블로킹 없는 작업만 해야 한다.
+ */
+@Component
+@Slf4j
+public class UsageEventBus {
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param id 사용량 기록기가 붙인 이벤트 id (usage_logs 의 행 id). 큐가 가득 차 기록되지 않는 이벤트면 null
+     */
+    public void publish(String id, UsageEvent event) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onUsage(id, event);
+            } catch (RuntimeException e) {
+                log.warn("Usage listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    public void publishError(ProxyError error) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onError(error);
+            } catch (RuntimeException e) {
+                log.warn("Usage listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 구독. 반환된 Runnable 을 실행하면 구독이 해제된다.
+     */
+    public Runnable subscribe(Listener listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    public interface Listener {
+
+        void onUsage(String id, UsageEvent event);
+
+        default void onError(ProxyError error) {
+        }
+    }
+}
@@ -31,6 +31,29 @@ public class Account {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = false;
 
+    // 로드 밸런싱/장애 조치 풀 포함 여부 (활성 계정은 항상 포함)
+    @Column(name = "pool_enabled")
+    private Boolean poolEnabled = false;
+
+    // 가중치 라운드 로빈/최소 요청 전략에서 사용하는 가중치
+    @Column(name = "weight")
+    private Integer weight = 1;
+
+    // 클라이언트 측 속도 제한 (null/0 이면 업스트림 응답 헤더에서 배운 한도만 적용)
+    @Column(name = "rpm_limit")
+    private Integer rpmLimit;
+
+    @Column(name = "tpm_limit")
+    private Integer tpmLimit;
+
+    // null/0 이면 동시 요청 수 제한 없음
+    @Column(name = "max_concurrency")
+    private Integer maxConcurrency;
+
+    // 다른 인스턴스의 사용량을 가져오며 만든 자리표시 계정 (Base URL/키가 없어 활성화/라우팅 대상이 아니다)
+    @Column(name = "is_placeholder")
+    private Boolean placeholder = false;
+
     public Account(String name, String baseUrl, String apiKey) {
         this.name = name;
         this.baseUrl = baseUrl;
@@ -0,0 +1,36 @@
+package com.swiftcast.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 프록시 핫패스에서 사용하는 계정 라우팅 스냅샷 (불변).
+ * 계정이 변경될 때마다 새 인스턴스로 교체되며, 요청 처리 중에는 DB 조회 없이 읽기만 한다.
+ */
+public record AccountSnapshot(long version, List<Account> accounts, Map<String, Account> byId, Account active) {
+
+    public static final AccountSnapshot EMPTY = new AccountSnapshot(0, List.of(), Map.of(), null);
+
+    public static AccountSnapshot of(long version, List<Account> accounts) {
+        List<Account> copy = List.copyOf(accounts);
+        Map<String, Account> byId = copy.stream()
+                .collect(Collectors.toUnmodifiableMap(Account::getId, Function.identity()));
+        Account active = copy.stream()
+                .filter(account -> Boolean.TRUE.equals(account.getIsActive())
+                        && !Boolean.TRUE.equals(account.getPlaceholder()))
+                .findFirst()
+                .orElse(null);
+        return new AccountSnapshot(version, copy, byId, active);
+    }
+
+    public Optional<Account> activeAccount() {
+        return Optional.ofNullable(active);
+    }
+
+    public Optional<Account> findById(String accountId) {
+        return Optional.ofNullable(byId.get(accountId));
+    }
+}
@@ -0,0 +1,38 @@
+package com.swiftcast.model;
+
+import java.net.URI;
+import java.util.Locale;
+
+/**
+ * 업스트림 제공자. 인증 헤더 방식이 다르다.
+ */
+public enum Provider {
+
+    // x-api-key: <key>
+    ANTHROPIC,
+    // Authorization: Bearer <key>
+    GLM;
+
+    /**
+     * 계정 Base URL 의 호스트로 제공자를 판별 (알 수 없으면 Anthropic 호환으로 간주)
+     */
+    public static Provider detect(String baseUrl) {
+        String host = hostOf(baseUrl);
+        if (host.endsWith("bigmodel.cn") || host.equals("z.ai") || host.endsWith(".z.ai")) {
+            return GLM;
+        }
+        return ANTHROPIC;
+    }
+
+    private static String hostOf(String baseUrl) {
+        if (baseUrl == null) {
+            return "";
+        }
+        try {
+            String host = URI.create(baseUrl.trim()).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : "";
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+}
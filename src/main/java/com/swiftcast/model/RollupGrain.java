@@ -0,0 +1,29 @@
+package com.swiftcast.model;
+
+import java.time.Instant;
+
+public enum RollupGrain {
+    HOURLY(3600),
+    DAILY(86400);
+
+    private final long seconds;
+
+    RollupGrain(long seconds) {
+        this.seconds = seconds;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    // UTC 기준 버킷 시작 시각 (epoch seconds)
+    public long bucketStart(Instant timestamp) {
+        long epochSecond = timestamp.getEpochSecond();
+        return epochSecond - Math.floorMod(epochSecond, seconds);
+    }
+
+    public long bucketCeil(Instant timestamp) {
+        long floor = bucketStart(timestamp);
+        return floor == timestamp.getEpochSecond() && timestamp.getNano() == 0 ? floor : floor + seconds;
+    }
+}
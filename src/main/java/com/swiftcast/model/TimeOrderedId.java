@@ -0,0 +1,30 @@
+package com.swiftcast.model;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUIDv7 형식의 시간 정렬 ID 생성기.
+ * 앞 48비트가 밀리초 타임스탬프, 다음 12비트가 같은 밀리초 내 순번이므로
+ * 문자열 정렬 순서가 생성 순서와 같고 B-tree 끝에만 삽입된다.
+ */
+public final class TimeOrderedId {
+
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private TimeOrderedId() {
+    }
+
+    public static String next() {
+        long now = System.currentTimeMillis();
+        // (timestamp << 12 | sequence) 를 단조 증가시킨다
+        long stamp = LAST.updateAndGet(prev -> Math.max(prev + 1, now << 12));
+        long millis = stamp >>> 12;
+        long sequence = stamp & 0xFFF;
+
+        long msb = (millis << 16) | 0x7000L | sequence;
+        long lsb = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
+    }
+}
@@ -0,0 +1,27 @@
+package com.swiftcast.model;
+
+import java.time.Instant;
+
+/**
+ * 프록시가 요청 완료 시점에 발행하는 사용량 이벤트 (불변).
+ * UsageRecorder 가 배치로 모아 usage_logs 에 기록한다.
+ *
+ * @param costNanos 비용 (나노달러). 단가를 모르는 모델이면 null
+ */
+public record UsageEvent(
+        Instant timestamp,
+        String accountId,
+        String model,
+        String requestPath,
+        Integer statusCode,
+        Integer inputTokens,
+        Integer outputTokens,
+        Integer cacheCreationTokens,
+        Integer cacheReadTokens,
+        Long costNanos
+) {
+
+    public Double costUsd() {
+        return costNanos != null ? costNanos / 1e9 : null;
+    }
+}
@@ -0,0 +1,33 @@
+package com.swiftcast.model;
+
+import java.util.Locale;
+
+/**
+ * 사용량 내보내기 형식. BINARY 가 기본 형식이고 NDJSON 도 다시 가져올 수 있다. CSV 는 스프레드시트용 (내보내기 전용).
+ */
+public enum UsageExportFormat {
+    // 델타/사전 인코딩 + gzip (.swu)
+    BINARY("swu", "application/octet-stream"),
+    CSV("csv", "text/csv"),
+    NDJSON("ndjson", "application/x-ndjson");
+
+    private final String extension;
+    private final String contentType;
+
+    UsageExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static UsageExportFormat fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -7,13 +7,16 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 @Entity
-@Table(name = "usage_logs")
+@Table(name = "usage_logs", indexes = {
+        @Index(name = "idx_usage_logs_account_ts", columnList = "account_id, timestamp"),
+        @Index(name = "idx_usage_logs_ts", columnList = "timestamp")
+})
 @Data
 @NoArgsConstructor
 public class UsageLog {
 
+    // 시간 정렬 키 (TimeOrderedId) — 랜덤 UUID 와 달리 인덱스 끝에만 삽입된다
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
     @Column(nullable = false)
@@ -31,6 +34,16 @@ public class UsageLog {
     @Column(name = "output_tokens")
     private Integer outputTokens;
 
+    @Column(name = "cache_creation_tokens")
+    private Integer cacheCreationTokens;
+
+    @Column(name = "cache_read_tokens")
+    private Integer cacheReadTokens;
+
+    // 비용의 기준 값 (나노달러 고정소수점). cost_usd 는 표시용으로 함께 기록한다
+    @Column(name = "cost_nanos")
+    private Long costNanos;
+
     @Column(name = "cost_usd")
     private Double costUsd;
 
@@ -41,6 +54,7 @@ public class UsageLog {
     private Integer statusCode;
 
     public UsageLog(String accountId, String model) {
+        this.id = TimeOrderedId.next();
         this.timestamp = Instant.now();
         this.accountId = accountId;
         this.model = model;
@@ -0,0 +1,61 @@
+package com.swiftcast.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 계정/모델별 시간·일 단위 사용량 집계.
+ * usage_logs 가 수집될 때 UsageRollupService 가 증분으로 갱신한다.
+ */
+@Entity
+@Table(name = "usage_rollups")
+@Data
+@NoArgsConstructor
+public class UsageRollup {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "request_count", nullable = false)
+    private Long requestCount = 0L;
+
+    @Column(name = "input_tokens", nullable = false)
+    private Long inputTokens = 0L;
+
+    @Column(name = "output_tokens", nullable = false)
+    private Long outputTokens = 0L;
+
+    // 합계는 나노달러 정수로 누적해 오차가 쌓이지 않게 한다 (기존 DB 에 추가되는 컬럼이라 nullable)
+    @Column(name = "cost_nanos")
+    private Long costNanos = 0L;
+
+    // 표시용 (cost_nanos 에서 파생)
+    @Column(name = "cost_usd", nullable = false)
+    private Double costUsd = 0.0;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Column(name = "account_id", nullable = false)
+        private String accountId;
+
+        @Column(name = "bucket_start", nullable = false)
+        private Long bucketStart;
+
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false, length = 16)
+        private RollupGrain grain;
+
+        @Column(nullable = false)
+        private String model;
+    }
+}
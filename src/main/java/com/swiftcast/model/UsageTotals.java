@@ -0,0 +1,15 @@
+package com.swiftcast.model;
+
+/**
+ * 기간별 사용량 합계. model 이 null 이면 모든 모델의 합계이다.
+ *
+ * @param costNanos 비용 (나노달러)
+ */
+public record UsageTotals(String model, long requests, long inputTokens, long outputTokens, long costNanos) {
+
+    public static final UsageTotals EMPTY = new UsageTotals(null, 0, 0, 0, 0);
+
+    public double costUsd() {
+        return costNanos / 1e9;
+    }
+}
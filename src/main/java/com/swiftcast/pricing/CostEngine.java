@@ -0,0 +1,122 @@
+package com.swiftcast.pricing;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.swiftcast.config.SwiftCastProperties;
+import com.swiftcast.model.Provider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 요청 완료 시점에 사용량 비용을 계산한다.
+ * <p>
+ * 기본 단가표는 classpath 의 pricing.json 이고, swiftcast.pricing.file 이 있으면 그 항목을 뒤에 덧붙인다
+ * (같은 모델/적용일이면 파일 쪽이 이긴다). 단가표는 시작 시 한 번만 읽어 메모리에 두므로 요청 경로에서 DB 나 파일에 접근하지 않는다.
+ */
+@Component
+@Slf4j
+public class CostEngine {
+
+    private static final String BUNDLED = "pricing.json";
+    private static final int MAX_WARNED_MODELS = 256;
+
+    private final PriceTable table;
+    private final Set<String> warnedModels = ConcurrentHashMap.newKeySet();
+
+    public CostEngine(ObjectMapper objectMapper, SwiftCastProperties properties) {
+        // 단가를 double 로 읽지 않도록 BigDecimal 로 파싱
+        ObjectReader reader = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        List<ModelPrice> prices = new ArrayList<>();
+        try (InputStream in = new ClassPathResource(BUNDLED).getInputStream()) {
+            prices.addAll(parse(reader.readTree(in)));
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Failed to load bundled price table", e);
+        }
+
+        String override = properties.getPricing().getFile();
+        Path file = override != null && !override.isBlank() ? Paths.get(override) : null;
+        if (file != null && Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                List<ModelPrice> custom = parse(reader.readTree(in));
+                prices.addAll(custom);
+                log.info("Loaded {} price entries from {}", custom.size(), file);
+            } catch (IOException | RuntimeException e) {
+                // 잘못된 사용자 단가표는 무시하고 기본 단가표만 쓴다
+                log.warn("Ignoring unreadable price table {}: {}", file, e.getMessage());
+            }
+        }
+        this.table = new PriceTable(prices);
+        log.debug("Price table ready: {} models", table.size());
+    }
+
+    /**
+     * 비용 (나노달러). 토큰 정보가 없거나 단가표에 없는 모델이면 null.
+     */
+    public Long costNanos(Provider provider, String model, Instant at, Integer inputTokens, Integer outputTokens,
+                          Integer cacheWriteTokens, Integer cacheReadTokens) {
+        if (inputTokens == null && outputTokens == null && cacheWriteTokens == null && cacheReadTokens == null) {
+            return null;
+        }
+        ModelPrice price = table.find(provider, model, at);
+        if (price == null) {
+            if (warnedModels.size() < MAX_WARNED_MODELS && warnedModels.add(provider + "/" + model)) {
+                log.warn("No price for {} model '{}', usage will be recorded without cost", provider, model);
+            }
+            return null;
+        }
+        return price.costNanos(tokensOf(inputTokens), tokensOf(outputTokens),
+                tokensOf(cacheWriteTokens), tokensOf(cacheReadTokens));
+    }
+
+    public ModelPrice find(Provider provider, String model, Instant at) {
+        return table.find(provider, model, at);
+    }
+
+    private static List<ModelPrice> parse(JsonNode root) {
+        List<ModelPrice> prices = new ArrayList<>();
+        for (JsonNode node : root.path("prices")) {
+            prices.add(new ModelPrice(
+                    Provider.valueOf(node.path("provider").asText("ANTHROPIC").toUpperCase(Locale.ROOT)),
+                    node.get("model").asText().toLowerCase(Locale.ROOT),
+                    LocalDate.parse(node.path("effectiveFrom").asText("1970-01-01")).atStartOfDay(ZoneOffset.UTC).toInstant(),
+                    microsPerMillion(node, "input"),
+                    microsPerMillion(node, "output"),
+                    microsPerMillion(node, "cacheWrite"),
+                    microsPerMillion(node, "cacheRead")));
+        }
+        return prices;
+    }
+
+    // 100만 토큰당 달러 → 100만 토큰당 마이크로달러 (정확히 표현할 수 없는 단가는 반올림)
+    private static long microsPerMillion(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return 0;
+        }
+        BigDecimal dollars = value.isNumber() ? value.decimalValue() : new BigDecimal(value.asText());
+        return dollars.movePointRight(6).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static long tokensOf(Integer tokens) {
+        return tokens != null ? tokens : 0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.swiftcast.pricing;
+
+import com.swiftcast.model.Provider;
+
+import java.time.Instant;
+
+/**
+ * 모델 한 버전의 토큰 단가. 단가는 100만 토큰당 마이크로달러(= 토큰당 피코달러) 정수로 보관한다.
+ *
+ * @param model         모델 이름 접두사 (소문자)
+ * @param effectiveFrom 이 단가가 적용되기 시작하는 시각
+ */
+public record ModelPrice(
+        Provider provider,
+        String model,
+        Instant effectiveFrom,
+        long input,
+        long output,
+        long cacheWrite,
+        long cacheRead
+) {
+
+    private static final long PICOS_PER_NANO = 1000;
+
+    /**
+     * 토큰 수로 비용을 계산한다 (나노달러, 반올림). 부동소수점을 거치지 않으므로 행을 아무리 합쳐도 오차가 쌓이지 않는다.
+     */
+    public long costNanos(long inputTokens, long outputTokens, long cacheWriteTokens, long cacheReadTokens) {
+        long picos = inputTokens * input
+                + outputTokens * output
+                + cacheWriteTokens * cacheWrite
+                + cacheReadTokens * cacheRead;
+        return (picos + PICOS_PER_NANO / 2) / PICOS_PER_NANO;
+    }
+}
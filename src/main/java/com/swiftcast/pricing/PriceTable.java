@@ -0,0 +1,93 @@
+package com.swiftcast.pricing;
+
+import com.swiftcast.model.Provider;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 제공자/모델별 단가표 (불변).
+ * <p>
+ * 모델 이름은 가장 긴 접두사로 찾는다 (예: claude-sonnet-4-5-20250929 → claude-sonnet-4-5).
+ * 같은 모델에 여러 버전이 있으면 사용 시각 이전에 적용된 마지막 버전을 쓴다.
+ * 접두사 검색 결과는 모델 이름별로 기억해 두므로 이후 조회는 해시 조회 한 번과 짧은 배열 탐색뿐이다.
+ */
+public final class PriceTable {
+
+    private static final ModelPrice[] UNPRICED = new ModelPrice[0];
+    // 업스트림이 돌려주는 모델 이름으로 메모가 무한히 커지지 않도록 제한
+    private static final int MAX_MEMO_ENTRIES = 1024;
+
+    private final Map<Provider, Map<String, ModelPrice[]>> versions = new EnumMap<>(Provider.class);
+    private final Map<Provider, Map<String, ModelPrice[]>> memo = new EnumMap<>(Provider.class);
+
+    /**
+     * @param prices 같은 (제공자, 모델, 적용 시각) 이 여러 번 나오면 나중 항목이 이긴다
+     */
+    public PriceTable(List<ModelPrice> prices) {
+        Map<Provider, Map<String, List<ModelPrice>>> grouped = new EnumMap<>(Provider.class);
+        for (ModelPrice price : prices) {
+            grouped.computeIfAbsent(price.provider(), p -> new HashMap<>())
+                    .computeIfAbsent(price.model(), m -> new ArrayList<>())
+                    .add(price);
+        }
+        for (Provider provider : Provider.values()) {
+            Map<String, ModelPrice[]> byModel = new HashMap<>();
+            grouped.getOrDefault(provider, Map.of()).forEach((model, list) -> {
+                // 안정 정렬이므로 같은 시각이면 나중에 추가된 항목이 뒤에 남는다
+                list.sort(Comparator.comparing(ModelPrice::effectiveFrom));
+                byModel.put(model, list.toArray(ModelPrice[]::new));
+            });
+            versions.put(provider, byModel);
+            memo.put(provider, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * 시각 at 에 적용되는 단가. 단가표에 없는 모델이면 null.
+     */
+    public ModelPrice find(Provider provider, String model, Instant at) {
+        if (model == null) {
+            return null;
+        }
+        Map<String, ModelPrice[]> cache = memo.get(provider);
+        ModelPrice[] candidates = cache.get(model);
+        if (candidates == null) {
+            candidates = longestPrefix(provider, model.toLowerCase(Locale.ROOT));
+            if (cache.size() < MAX_MEMO_ENTRIES) {
+                cache.put(model, candidates);
+            }
+        }
+        if (candidates.length == 0) {
+            return null;
+        }
+        // 첫 버전 이전 시각(시계 오차 등)이면 첫 버전을 쓴다
+        ModelPrice current = candidates[0];
+        for (int i = 1; i < candidates.length && !candidates[i].effectiveFrom().isAfter(at); i++) {
+            current = candidates[i];
+        }
+        return current;
+    }
+
+    public int size() {
+        return versions.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private ModelPrice[] longestPrefix(Provider provider, String model) {
+        Map<String, ModelPrice[]> byModel = versions.get(provider);
+        for (int end = model.length(); end > 0; end--) {
+            ModelPrice[] match = byModel.get(model.substring(0, end));
+            if (match != null) {
+                return match;
+            }
+        }
+        return UNPRICED;
+    }
+}
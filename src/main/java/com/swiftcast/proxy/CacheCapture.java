@@ -0,0 +1,48 @@
+package com.swiftcast.proxy;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.util.Arrays;
+
+/**
+ * 캐시 저장용으로 응답 바이트를 복사해 모으는 버퍼. 한도를 넘으면 저장을 포기한다.
+ */
+final class CacheCapture {
+
+    private final int limit;
+    private byte[] bytes = new byte[8192];
+    private int length;
+    private boolean overflowed;
+
+    CacheCapture(int limit) {
+        this.limit = limit;
+    }
+
+    void append(DataBuffer buffer) {
+        if (overflowed) {
+            return;
+        }
+        int count = buffer.readableByteCount();
+        if (length + count > limit) {
+            overflowed = true;
+            bytes = null;
+            return;
+        }
+        if (length + count > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.min(limit, Math.max(bytes.length * 2, length + count)));
+        }
+        int start = buffer.readPosition();
+        for (int i = 0; i < count; i++) {
+            bytes[length + i] = buffer.getByte(start + i);
+        }
+        length += count;
+    }
+
+    boolean isOverflowed() {
+        return overflowed;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+}
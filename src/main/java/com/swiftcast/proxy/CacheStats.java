@@ -0,0 +1,9 @@
+package com.swiftcast.proxy;
+
+public record CacheStats(long hits, long misses, long bytesSaved, int memoryEntries, long memoryBytes, long diskBytes) {
+
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
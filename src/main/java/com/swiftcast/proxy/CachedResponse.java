@@ -0,0 +1,13 @@
+package com.swiftcast.proxy;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 캐시된 업스트림 응답. 본문은 힙 버퍼이다 (디스크 티어 항목도 읽을 때 힙으로 복사).
+ */
+public record CachedResponse(int status, String contentType, long createdAt, ByteBuffer body) {
+
+    public int size() {
+        return body.remaining();
+    }
+}
@@ -0,0 +1,141 @@
+package com.swiftcast.proxy;
+
+import com.swiftcast.model.Account;
+import com.swiftcast.model.Provider;
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+
+/**
+ * 계정별로 한 번만 만들어 두는 헤더 재작성기.
+ * <p>
+ * 요청: hop-by-hop 헤더(RFC 7230 6.1, Connection 에 나열된 헤더 포함)와 클라이언트 인증/호스트 헤더를 제외하고
+ * 복사한 뒤 제공자에 맞는 인증 헤더를 넣는다. 응답: hop-by-hop 헤더를 제외하고 복사한다
+ * (업스트림의 Transfer-Encoding/Connection 을 그대로 넘기면 클라이언트 쪽 청크 인코딩이 깨진다).
+ * 헤더 이름 비교는 길이별로 나눈 거부 목록에서 equalsIgnoreCase 로 하므로 요청마다 문자열을 만들지 않는다.
+ */
+final class HeaderRewriter {
+
+    static final String ANTHROPIC_VERSION = "2023-06-01";
+
+    private static final String[] HOP_BY_HOP = {
+            "connection", "keep-alive", "proxy-connection", "transfer-encoding", "te", "trailer",
+            "upgrade", "proxy-authenticate", "proxy-authorization"
+    };
+
+    // 클라이언트 인증은 계정 키로 교체하고, Host/Content-Length 는 WebClient 가 다시 정한다.
+    // Accept-Encoding 을 넘기지 않아 업스트림이 압축하지 않은 본문을 보내게 한다 (usage 추출/캐시가 원문을 읽는다)
+    private static final NameSet REQUEST_DENY = NameSet.of(HOP_BY_HOP,
+            "host", "content-length", "x-api-key", "authorization", "accept-encoding");
+
+    private static final NameSet RESPONSE_DENY = NameSet.of(HOP_BY_HOP);
+
+    private final String authName;
+    private final List<String> authValue;
+
+    private HeaderRewriter(String authName, String authValue) {
+        this.authName = authName;
+        this.authValue = List.of(authValue);
+    }
+
+    static HeaderRewriter forAccount(Account account) {
+        return switch (Provider.detect(account.getBaseUrl())) {
+            case ANTHROPIC -> new HeaderRewriter("x-api-key", account.getApiKey());
+            case GLM -> new HeaderRewriter(HttpHeaders.AUTHORIZATION, "Bearer " + account.getApiKey());
+        };
+    }
+
+    void copyRequest(HttpHeaders source, HttpHeaders target) {
+        copy(source, target, REQUEST_DENY);
+        target.put(authName, authValue);
+        if (!target.containsKey("anthropic-version")) {
+            target.set("anthropic-version", ANTHROPIC_VERSION);
+        }
+    }
+
+    static void copyResponse(HttpHeaders source, HttpHeaders target) {
+        copy(source, target, RESPONSE_DENY);
+    }
+
+    private static void copy(HttpHeaders source, HttpHeaders target, NameSet deny) {
+        // Connection 헤더에 나열된 이름도 hop-by-hop (대부분의 요청에는 없다)
+        List<String> connection = source.get(HttpHeaders.CONNECTION);
+        source.forEach((name, values) -> {
+            if (!deny.contains(name) && !listedIn(connection, name)) {
+                target.addAll(name, values);
+            }
+        });
+    }
+
+    private static boolean listedIn(List<String> connection, String name) {
+        if (connection == null) {
+            return false;
+        }
+        for (String value : connection) {
+            int start = 0;
+            while (start < value.length()) {
+                int end = value.indexOf(',', start);
+                if (end < 0) {
+                    end = value.length();
+                }
+                int from = start;
+                int to = end;
+                while (from < to && value.charAt(from) == ' ') {
+                    from++;
+                }
+                while (to > from && value.charAt(to - 1) == ' ') {
+                    to--;
+                }
+                if (to - from == name.length() && value.regionMatches(true, from, name, 0, name.length())) {
+                    return true;
+                }
+                start = end + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 대소문자 무시 헤더 이름 집합. 이름 길이로 먼저 나누어 후보를 한두 개로 줄인다.
+     */
+    private static final class NameSet {
+
+        private final String[][] byLength;
+
+        private NameSet(String[][] byLength) {
+            this.byLength = byLength;
+        }
+
+        static NameSet of(String[] base, String... extra) {
+            String[] names = new String[base.length + extra.length];
+            System.arraycopy(base, 0, names, 0, base.length);
+            System.arraycopy(extra, 0, names, base.length, extra.length);
+
+            int maxLength = 0;
+            for (String name : names) {
+                maxLength = Math.max(maxLength, name.length());
+            }
+            String[][] byLength = new String[maxLength + 1][0];
+            for (String name : names) {
+                String[] bucket = byLength[name.length()];
+                String[] grown = new String[bucket.length + 1];
+                System.arraycopy(bucket, 0, grown, 0, bucket.length);
+                grown[bucket.length] = name;
+                byLength[name.length()] = grown;
+            }
+            return new NameSet(byLength);
+        }
+
+        boolean contains(String name) {
+            if (name.length() >= byLength.length) {
+                return false;
+            }
+            for (String candidate : byLength[name.length()]) {
+                if (candidate.equalsIgnoreCase(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.swiftcast.proxy;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 요청 본문 앞부분에서 최상위 JSON 필드 값을 찾는 경량 스캐너.
+ * 전체를 역직렬화하지 않고 바이트 단위로 중첩 깊이와 문자열만 추적한다.
+ * 결과는 값 토큰의 [start, end) 범위를 하나의 long 으로 묶어 반환한다 (문자열은 따옴표 제외).
+ */
+public final class JsonPeek {
+
+    public static final long NOT_FOUND = -1L;
+
+    private JsonPeek() {
+    }
+
+    public static long find(byte[] body, int limit, String key) {
+        return find(body, limit, key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static long find(byte[] body, int limit, byte[] key) {
+        int end = Math.min(body.length, limit);
+        int depth = 0;
+        int i = 0;
+        while (i < end) {
+            byte b = body[i];
+            if (b == '"') {
+                int stringStart = i + 1;
+                int stringEnd = skipString(body, stringStart, end);
+                if (stringEnd < 0) {
+                    return NOT_FOUND;
+                }
+                i = stringEnd + 1;
+                if (depth == 1 && matches(body, stringStart, stringEnd, key)) {
+                    int colon = skipWhitespace(body, i, end);
+                    if (colon < end && body[colon] == ':') {
+                        return valueSpan(body, skipWhitespace(body, colon + 1, end), end);
+                    }
+                }
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+            i++;
+        }
+        return NOT_FOUND;
+    }
+
+    public static int start(long span) {
+        return (int) (span >>> 32);
+    }
+
+    public static int end(long span) {
+        return (int) span;
+    }
+
+    public static String string(byte[] body, long span) {
+        return span == NOT_FOUND ? null : new String(body, start(span), end(span) - start(span), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * span 이 따옴표로 감싼 문자열 값인지
+     */
+    public static boolean isString(byte[] body, long span) {
+        return span != NOT_FOUND && start(span) > 0 && body[start(span) - 1] == '"';
+    }
+
+    /**
+     * 문자열 값의 span 범위(따옴표 안)를 replacement 로 교체한 새 본문 (모델명 재작성 등).
+     * replacement 는 JSON 문자열로 escape 하여 넣는다.
+     */
+    public static byte[] replace(byte[] body, long span, String replacement) {
+        byte[] value = escape(replacement).getBytes(StandardCharsets.UTF_8);
+        int start = start(span);
+        int end = end(span);
+        byte[] result = new byte[body.length - (end - start) + value.length];
+        System.arraycopy(body, 0, result, 0, start);
+        System.arraycopy(value, 0, result, start, value.length);
+        System.arraycopy(body, end, result, start + value.length, body.length - end);
+        return result;
+    }
+
+    // 따옴표, 역슬래시, 제어 문자만 escape (대부분의 모델명은 그대로 반환)
+    private static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) {
+                if (escaped != null) {
+                    escaped.append(c);
+                }
+                continue;
+            }
+            if (escaped == null) {
+                escaped = new StringBuilder(value.length() + 8).append(value, 0, i);
+            }
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else {
+                escaped.append(String.format("\\u%04x", (int) c));
+            }
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+
+    private static long valueSpan(byte[] body, int i, int end) {
+        if (i >= end) {
+            return NOT_FOUND;
+        }
+        if (body[i] == '"') {
+            int stringEnd = skipString(body, i + 1, end);
+            return stringEnd < 0 ? NOT_FOUND : pack(i + 1, stringEnd);
+        }
+        int j = i;
+        while (j < end && body[j] != ',' && body[j] != '}' && body[j] != ']' && !isWhitespace(body[j])) {
+            j++;
+        }
+        return j == i || j == end ? NOT_FOUND : pack(i, j);
+    }
+
+    // 닫는 따옴표 위치, 범위 안에서 끝나지 않으면 -1
+    private static int skipString(byte[] body, int i, int end) {
+        while (i < end) {
+            byte b = body[i];
+            if (b == '\\') {
+                i += 2;
+                continue;
+            }
+            if (b == '"') {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] body, int i, int end) {
+        while (i < end && isWhitespace(body[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean matches(byte[] body, int start, int end, byte[] key) {
+        if (end - start != key.length) {
+            return false;
+        }
+        for (int k = 0; k < key.length; k++) {
+            if (body[start + k] != key[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static long pack(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+}
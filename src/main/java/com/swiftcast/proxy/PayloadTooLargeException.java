@@ -0,0 +1,13 @@
+package com.swiftcast.proxy;
+
+/**
+ * 요청 본문이 swiftcast.request.max-body-bytes 를 넘은 경우 (413)
+ */
+class PayloadTooLargeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    PayloadTooLargeException(long maxBytes) {
+        super("Request body exceeds " + maxBytes + " bytes");
+    }
+}
@@ -1,17 +1,50 @@
 package com.swiftcast.proxy;
 
+import com.swiftcast.config.SwiftCastProperties;
+import com.swiftcast.metrics.ProxyError;
+import com.swiftcast.metrics.ProxyMetrics;
+import com.swiftcast.metrics.RequestMetrics;
+import com.swiftcast.metrics.UsageEventBus;
 import com.swiftcast.model.Account;
+import com.swiftcast.model.AccountSnapshot;
+import com.swiftcast.model.Provider;
+import com.swiftcast.model.UsageEvent;
+import com.swiftcast.pricing.CostEngine;
+import com.swiftcast.routing.RateGovernor;
+import com.swiftcast.routing.RateLimitedException;
+import com.swiftcast.routing.RouteDecision;
+import com.swiftcast.routing.RoutingRules;
+import com.swiftcast.routing.UpstreamRouter;
 import com.swiftcast.service.AccountService;
+import com.swiftcast.service.UsageRecorder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Component
 @RequiredArgsConstructor
@@ -19,48 +52,506 @@ import java.util.Optional;
 public class ProxyHandler {
 
     private final AccountService accountService;
-    private final WebClient.Builder webClientBuilder;
+    private final UpstreamClientRegistry clientRegistry;
+    private final UpstreamRouter router;
+    private final RateGovernor rateGovernor;
+    private final UpstreamResilience resilience;
+    private final ProxyMetrics metrics;
+    private final RoutingRules routingRules;
+    private final UsageRecorder usageRecorder;
+    private final UsageEventBus usageBus;
+    private final CostEngine costEngine;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer coalescer;
+    private final SwiftCastProperties properties;
+
+    // 압축된 응답 본문을 건너뛴 경우 한 번만 경고
+    private final AtomicBoolean encodedBodyWarned = new AtomicBoolean();
 
     public Mono<ServerResponse> handleProxy(ServerRequest request) {
-        Optional<Account> accountOpt = accountService.getActiveAccount();
+        AccountSnapshot snapshot = accountService.getSnapshot();
+        SwiftCastProperties.Request limits = properties.getRequest();
+
+        long contentLength = request.headers().contentLength().orElse(-1);
+        if (contentLength > limits.getMaxBodyBytes()) {
+            return errorResponse(request, new PayloadTooLargeException(limits.getMaxBodyBytes()));
+        }
+
+        // bufferLimit 이하는 바이트로 보관(장애 조치/캐시용), 넘으면 DataBuffer 를 그대로 업스트림에 스트리밍
+        return RequestBodyReader.read(request.bodyToFlux(DataBuffer.class), limits.getBufferLimitBytes(),
+                        limits.getMaxBodyBytes(), contentLength, body -> route(request, snapshot, body))
+                .onErrorResume(error -> errorResponse(request, error));
+    }
+
+    private Mono<ServerResponse> errorResponse(ServerRequest request, Throwable error) {
+        HttpStatus status;
+        String message;
+        String retryAfter = null;
+        PayloadTooLargeException tooLarge = payloadTooLarge(error);
+        if (tooLarge != null) {
+            status = HttpStatus.PAYLOAD_TOO_LARGE;
+            message = tooLarge.getMessage();
+        } else if (error instanceof TimeoutException) {
+            log.warn("Upstream timeout: {}", error.getMessage());
+            status = HttpStatus.GATEWAY_TIMEOUT;
+            message = "Upstream timeout: " + error.getMessage();
+        } else if (error instanceof RateLimitedException limited) {
+            log.warn(limited.getMessage());
+            status = HttpStatus.TOO_MANY_REQUESTS;
+            message = limited.getMessage();
+            retryAfter = String.valueOf(limited.getRetryAfter().toSeconds());
+        } else {
+            log.error("Proxy error: {}", error.getMessage(), error);
+            status = HttpStatus.BAD_GATEWAY;
+            message = "Proxy error: " + error.getMessage();
+        }
+        usageBus.publishError(new ProxyError(Instant.now(), null, request.path(), status.value(), message));
+
+        ServerResponse.BodyBuilder builder = ServerResponse.status(status);
+        if (retryAfter != null) {
+            builder.header(HttpHeaders.RETRY_AFTER, retryAfter);
+        }
+        return builder.bodyValue(message);
+    }
+
+    private Mono<ServerResponse> route(ServerRequest request, AccountSnapshot snapshot, RequestBody requestBody) {
+        byte[] body = requestBody.head();
+        long contentLength = requestBody.isComplete() ? -1 : requestBody.contentLength();
+
+        // 본문 앞부분만 훑어 model 을 찾는다 (전체 역직렬화 없음)
+        long modelSpan = body.length > 0
+                ? JsonPeek.find(body, properties.getRouting().getPeekBytes(), "model")
+                : JsonPeek.NOT_FOUND;
+        String model = JsonPeek.string(body, modelSpan);
 
-        if (accountOpt.isEmpty()) {
+        RouteDecision decision = routingRules.decide(snapshot, request.path(),
+                request.headers().asHttpHeaders(), model, requestBody.estimatedSize());
+        // 재작성한 본문은 따로 두고 계정마다 골라 보낸다 (다른 제공자로 장애 조치하면 원래 모델로 보낸다)
+        ProxyRequest.ModelRewrite rewrite = decision.rewriteModel() != null && JsonPeek.isString(body, modelSpan)
+                ? new ProxyRequest.ModelRewrite(decision.rewriteProvider(), decision.rewriteModel(),
+                        JsonPeek.replace(body, modelSpan, decision.rewriteModel()))
+                : null;
+        ProxyRequest proxyRequest = ProxyRequest.of(request, body, requestBody.rest(), contentLength,
+                model, decision.ruleName(), rewrite);
+
+        List<Account> candidates = router.candidates(snapshot, decision.account());
+        if (candidates.isEmpty()) {
             log.warn("No active account configured");
-            return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
-                    .bodyValue("No active account configured");
+            return proxyRequest.discardBody().then(ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .bodyValue("No active account configured"));
+        }
+        if (decision.ruleName() != null) {
+            log.debug("Routing rule '{}' matched (model: {})", decision.ruleName(), model);
+        }
+        RequestMetrics metrics = metricsOf(request);
+        if (metrics != null) {
+            metrics.setAccount(candidates.get(0).getName());
+            metrics.setModel(proxyRequest.modelFor(candidates.get(0)));
+            metrics.setBytesIn(requestBody.estimatedSize());
+        }
+
+        if (responseCache.isCacheable(proxyRequest)) {
+            ProxyRequest cacheable = proxyRequest.withCacheKey(proxyRequest.fingerprint(candidates.get(0)));
+            return responseCache.lookup(cacheable.cacheKey())
+                    .flatMap(cached -> replay(cached, metrics))
+                    .switchIfEmpty(Mono.defer(() -> dispatch(cacheable, candidates)));
+        }
+        return dispatch(proxyRequest, candidates);
+    }
+
+    private Mono<ServerResponse> dispatch(ProxyRequest request, List<Account> candidates) {
+        if (coalescer.isEligible(request)) {
+            String key = request.cacheKey() != null ? request.cacheKey() : request.fingerprint(candidates.get(0));
+            return coalescer.execute(key, () -> forward(request, candidates).map(up -> instrument(up, request)))
+                    .flatMap(shared -> respondShared(shared, metricsOf(request.server())));
+        }
+        return forward(request, candidates)
+                // 연산자가 응답을 버리면(취소 경합 등) 본문을 구독하지 않은 채 남지 않도록 반납한다
+                .doOnDiscard(UpstreamResponse.class, UpstreamResponse::releaseBody)
+                .flatMap(up -> respond(instrument(up, request), metricsOf(request.server())));
+    }
+
+    private Mono<ServerResponse> replay(CachedResponse cached, RequestMetrics metrics) {
+        log.debug("Response cache hit ({} bytes)", cached.size());
+        ServerResponse.BodyBuilder builder = ServerResponse.status(cached.status())
+                .header("x-swiftcast-cache", "HIT");
+        MediaType contentType = cached.contentType() != null ? MediaType.parseMediaType(cached.contentType()) : null;
+        if (contentType != null) {
+            builder.contentType(contentType);
+        }
+        // 여러 요청이 동시에 재생할 수 있으므로 position 이 독립적인 duplicate 를 사용
+        Flux<DataBuffer> body = Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(cached.body().duplicate()));
+        return builder.body(passthrough(body, contentType, metrics));
+    }
+
+    private Mono<ServerResponse> respond(UpstreamResponse response, RequestMetrics metrics) {
+        if (metrics != null) {
+            // 장애 조치로 실제 응답한 계정이 바뀌었을 수 있다
+            metrics.setAccount(response.account().getName());
+        }
+        return ServerResponse.status(response.status())
+                .headers(h -> HeaderRewriter.copyResponse(response.headers(), h))
+                .body(passthrough(response.body(), response.headers().getContentType(), metrics));
+    }
+
+    private Mono<ServerResponse> respondShared(RequestCoalescer.SharedResponse shared, RequestMetrics metrics) {
+        return ServerResponse.status(shared.status())
+                .headers(h -> HeaderRewriter.copyResponse(shared.headers(), h))
+                .body(passthrough(shared.body(), shared.headers().getContentType(), metrics));
+    }
+
+    private Mono<UpstreamResponse> forward(ProxyRequest request, List<Account> candidates) {
+        ResiliencePolicy policy = resilience.policyFor(request.path());
+        Dispatch dispatch = new Dispatch(request, candidates, policy, policy.deadline(System.nanoTime()));
+        Mono<UpstreamResponse> primary = forward(dispatch, 0);
+
+        // 다시 보낼 수 있는 요청만 헤지한다
+        long hedgeDelay = policy.hedge() && request.replayable() ? resilience.hedgeDelayNanos(candidates.get(0)) : -1;
+        if (hedgeDelay < 0) {
+            return primary;
+        }
+        // 응답 헤더가 p95 보다 늦으면 다음 후보(없으면 같은 계정)로 한 번 더 보내고 먼저 응답한 쪽을 쓴다.
+        // 헤지 쪽 실패는 무시하고 주 요청을 기다리며, 응답 헤더 전의 진 쪽은 취소되어 커넥션/허가를 반납한다.
+        // 양쪽 응답이 거의 동시에 도착하면 먼저 차지한 쪽만 내보내고 나머지는 본문을 버린다.
+        AtomicBoolean settled = new AtomicBoolean();
+        int hedgeIndex = candidates.size() > 1 ? 1 : 0;
+        Mono<UpstreamResponse> hedge = Mono.delay(Duration.ofNanos(hedgeDelay))
+                .then(Mono.defer(() -> {
+                    metrics.recordHedge();
+                    log.debug("Hedging {} {} after {}ms", request.server().method(), request.path(),
+                            TimeUnit.NANOSECONDS.toMillis(hedgeDelay));
+                    return forward(dispatch, hedgeIndex);
+                }))
+                .onErrorResume(error -> Mono.never())
+                .flatMap(response -> claim(response, settled))
+                .doOnNext(response -> metrics.recordHedgeWin());
+        return Mono.firstWithSignal(
+                primary.flatMap(response -> claim(response, settled))
+                        .onErrorResume(error -> settled.compareAndSet(false, true) ? Mono.error(error) : Mono.never()),
+                hedge);
+    }
+
+    // 헤지 경합에서 먼저 차지한 응답만 내보낸다. 진 쪽 응답은 firstWithSignal 이 버리기 전에 직접 반납한다
+    private static Mono<UpstreamResponse> claim(UpstreamResponse response, AtomicBoolean settled) {
+        if (settled.compareAndSet(false, true)) {
+            return Mono.just(response);
+        }
+        response.releaseBody();
+        return Mono.never();
+    }
+
+    private Mono<UpstreamResponse> forward(Dispatch dispatch, int attempt) {
+        List<Account> candidates = dispatch.candidates;
+        // 서킷이 열린 계정은 건너뛰고, 모두 차단된 경우에는 주 계정으로 강제 시도
+        Started started = startFrom(candidates, attempt);
+        if (started == null) {
+            if (attempt > 0) {
+                return Mono.error(new IllegalStateException("All upstream accounts are unavailable"));
+            }
+            started = new Started(0, router.tryStart(candidates.get(0), true));
+        }
+        return forwardTo(dispatch, started);
+    }
+
+    /**
+     * 이미 시작한(tryStart) 후보 하나로 보낸다.
+     */
+    private Mono<UpstreamResponse> forwardTo(Dispatch dispatch, Started started) {
+        ProxyRequest request = dispatch.request;
+        Account account = dispatch.candidates.get(started.index());
+        UpstreamRouter.Attempt attempt = started.attempt();
+        int next = started.index() + 1;
+
+        // 본문 크기(바이트 / 4)로 추정한 토큰 수로 TPM 을 예약하고, 응답 후 실제 사용량으로 보정
+        RateGovernor.Lease lease = rateGovernor.lease(account, request.bodySize() / 4);
+
+        log.debug("Proxying {} {} -> {}{}", request.server().method(), request.path(), account.getBaseUrl(), request.path());
+
+        return lease.acquire()
+                .then(Mono.defer(() -> send(dispatch, account)))
+                // 응답 헤더 전에 취소되면(헤지에서 진 쪽, 클라이언트 종료) 바로 반납한다
+                .doOnCancel(() -> {
+                    lease.release();
+                    attempt.finish();
+                })
+                .map(entity -> onResponse(dispatch, account, attempt, lease, entity, next))
+                .onErrorResume(error -> Mono.just(onError(dispatch, account, attempt, lease, error, next)))
+                .flatMap(Function.identity());
+    }
+
+    /**
+     * from 부터 서킷이 닫힌 첫 후보를 시작한다. 없으면 null.
+     */
+    private Started startFrom(List<Account> candidates, int from) {
+        for (int i = from; i < candidates.size(); i++) {
+            UpstreamRouter.Attempt attempt = router.tryStart(candidates.get(i), false);
+            if (attempt != null) {
+                return new Started(i, attempt);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 장애 조치할 다음 후보를 시작한다. 스트리밍 요청 본문은 한 번만 보낼 수 있으므로 장애 조치하지 않는다.
+     * 시작할 수 있는 후보가 없으면 null (실제 업스트림 응답/오류를 그대로 돌려준다).
+     */
+    private Started startFallback(Dispatch dispatch, int next) {
+        return dispatch.request.replayable() ? startFrom(dispatch.candidates, next) : null;
+    }
+
+    /**
+     * 첫 바이트(응답 헤더) 타임아웃을 걸어 보낸다. 전체 기한이 더 가까우면 그때까지만 기다린다.
+     */
+    private Mono<ResponseEntity<Flux<DataBuffer>>> send(Dispatch dispatch, Account account) {
+        long sentAt = System.nanoTime();
+        long remaining = dispatch.deadline - sentAt;
+        if (remaining <= 0) {
+            return Mono.error(new TimeoutException("Upstream total timeout exceeded"));
+        }
+        Duration firstByte = dispatch.policy.firstByteTimeout();
+        Duration timeout = remaining < firstByte.toNanos() ? Duration.ofNanos(remaining) : firstByte;
+        return exchange(dispatch.request, account)
+                .timeout(timeout)
+                .doOnNext(entity -> metrics.recordUpstreamResponse(account.getName(), System.nanoTime() - sentAt));
+    }
+
+    private Mono<UpstreamResponse> onResponse(Dispatch dispatch, Account account, UpstreamRouter.Attempt attempt,
+                                              RateGovernor.Lease lease, ResponseEntity<Flux<DataBuffer>> entity,
+                                              int next) {
+        int status = entity.getStatusCode().value();
+        rateGovernor.observe(account, status, entity.getHeaders());
+        boolean failover = attempt.recordStatus(status);
+        Started fallback = failover ? startFallback(dispatch, next) : null;
+        if (fallback != null) {
+            log.warn("Upstream {} returned {}, failing over", account.getName(), status);
+            lease.release();
+            attempt.finish();
+            // 버리는 본문을 읽는 동안 취소되면 시작해 둔 다음 후보도 반납한다
+            return discard(entity).then(forwardTo(dispatch, fallback))
+                    .doOnCancel(() -> fallback.attempt().finish());
+        }
+        // 멱등 요청은 응답 헤더를 받은 뒤에도 5xx 면 다시 보낸다 (429 는 속도 제한기가 retry-after 만큼 기다린다)
+        Duration backoff = failover && status != 429 && UpstreamResilience.isIdempotent(dispatch.request.server().method())
+                ? nextBackoff(dispatch) : null;
+        if (backoff != null) {
+            log.warn("Upstream {} returned {}, retrying in {}ms", account.getName(), status, backoff.toMillis());
+            lease.release();
+            attempt.finish();
+            return discard(entity).then(retryAfter(dispatch, backoff));
+        }
+        // 본문 전송이 끝나거나 취소되면(구독하지 않고 버리는 경우 releaseBody) 시도와 lease 를 반납한다.
+        // 실제 사용량 보정(lease.complete)은 instrument 가 하며, 여기서는 허가만 확실히 돌려준다
+        Flux<DataBuffer> body = entity.getBody() != null ? entity.getBody() : Flux.empty();
+        return Mono.just(new UpstreamResponse(account, status, entity.getHeaders(),
+                UpstreamResponse.once(withDeadline(body, dispatch.deadline)
+                        .doFinally(signal -> {
+                            lease.release();
+                            attempt.finish();
+                        })), lease));
+    }
+
+    private Mono<UpstreamResponse> onError(Dispatch dispatch, Account account, UpstreamRouter.Attempt attempt,
+                                           RateGovernor.Lease lease, Throwable error, int next) {
+        lease.release();
+        // 로컬 대기 기한 초과는 업스트림 장애가 아니다
+        boolean rateLimited = error instanceof RateLimitedException;
+        if (!rateLimited) {
+            attempt.recordError();
+        }
+        attempt.finish();
+        // 요청이 업스트림에 전달됐을 수 있으면(첫 바이트 타임아웃 등) 비멱등 요청은 다시 보내지 않는다
+        boolean resendable = rateLimited
+                || UpstreamResilience.isSafeToResend(dispatch.request.server().method(), error);
+        Started fallback = resendable ? startFallback(dispatch, next) : null;
+        if (fallback != null) {
+            log.warn("Upstream {} failed ({}), failing over", account.getName(), error.getMessage());
+            return forwardTo(dispatch, fallback);
         }
+        // 응답 헤더 전 실패(멱등 요청의 연결 오류/첫 바이트 타임아웃, 그 밖의 요청은 연결 단계 오류)는 백오프 후 다시 보낸다
+        Duration backoff = !rateLimited && resendable && dispatch.request.replayable() ? nextBackoff(dispatch) : null;
+        if (backoff != null) {
+            log.warn("Upstream {} failed ({}), retrying in {}ms", account.getName(), error.getMessage(), backoff.toMillis());
+            return retryAfter(dispatch, backoff);
+        }
+        return Mono.error(error);
+    }
 
-        Account account = accountOpt.get();
-        String targetUrl = account.getBaseUrl() + request.path();
+    /**
+     * 재시도 예산과 전체 기한 안에서 다음 백오프 시간. 더 재시도할 수 없으면 null.
+     */
+    private Duration nextBackoff(Dispatch dispatch) {
+        int retry = dispatch.retries.getAndIncrement();
+        if (retry >= dispatch.policy.maxRetries()) {
+            return null;
+        }
+        Duration backoff = resilience.backoff(retry);
+        if (dispatch.deadline - System.nanoTime() <= backoff.toNanos()) {
+            return null;
+        }
+        return backoff;
+    }
 
-        log.debug("Proxying {} {} -> {}", request.method(), request.path(), targetUrl);
+    private Mono<UpstreamResponse> retryAfter(Dispatch dispatch, Duration backoff) {
+        metrics.recordRetry();
+        return Mono.delay(backoff).then(Mono.defer(() -> forward(dispatch, 0)));
+    }
 
-        WebClient client = webClientBuilder
-                .baseUrl(account.getBaseUrl())
-                .defaultHeader("x-api-key", account.getApiKey())
-                .defaultHeader("anthropic-version", "2023-06-01")
-                .build();
+    private Mono<ResponseEntity<Flux<DataBuffer>>> exchange(ProxyRequest request, Account account) {
+        UpstreamClientRegistry.UpstreamClient upstream = clientRegistry.clientFor(account);
+        byte[] body = request.bodyFor(account);
 
-        return client.method(request.method())
+        // 본문이 재작성될 수 있으므로 Content-Length 는 WebClient 가 다시 계산
+        WebClient.RequestBodySpec bodySpec = upstream.client().method(request.server().method())
                 .uri(request.path())
-                .headers(headers -> {
-                    request.headers().asHttpHeaders().forEach((key, values) -> {
-                        if (!key.equalsIgnoreCase("host") &&
-                            !key.equalsIgnoreCase("x-api-key")) {
-                            headers.addAll(key, values);
-                        }
-                    });
+                .headers(headers -> upstream.headers().copyRequest(request.server().headers().asHttpHeaders(), headers));
+        WebClient.RequestHeadersSpec<?> spec;
+        if (!request.replayable()) {
+            // 큰 본문은 버퍼링 없이 DataBuffer 그대로 전달 (전송 후 Netty 가 release)
+            long contentLength = request.contentLengthFor(account);
+            if (contentLength >= 0) {
+                bodySpec.contentLength(contentLength);
+            }
+            spec = bodySpec.body(BodyInserters.fromDataBuffers(request.streamingBody(account)));
+        } else {
+            spec = body.length > 0 ? bodySpec.bodyValue(body) : bodySpec;
+        }
+
+        return spec.retrieve()
+                // 상태 코드와 상관없이 업스트림 응답을 그대로 전달
+                .onStatus(status -> true, clientResponse -> Mono.empty())
+                .toEntityFlux(DataBuffer.class);
+    }
+
+    /**
+     * 응답 본문이 흘러가는 동안 usage 추출/캐시 저장을 하고, 전송이 끝나면 사용량 이벤트를 큐에 넣는다 (요청 지연 없음).
+     */
+    private UpstreamResponse instrument(UpstreamResponse response, ProxyRequest request) {
+        Account account = response.account();
+        UsageScanner scanner = new UsageScanner();
+        // Accept-Encoding 을 넘기지 않지만 업스트림이 그래도 압축했다면 압축된 바이트는 읽을 수 없다
+        String encoding = response.headers().getFirst(HttpHeaders.CONTENT_ENCODING);
+        boolean encoded = encoding != null && !encoding.isBlank() && !"identity".equalsIgnoreCase(encoding.trim());
+        if (encoded && encodedBodyWarned.compareAndSet(false, true)) {
+            log.warn("Upstream {} returned a {}-encoded body, usage and cost are not recorded for such responses",
+                    account.getName(), encoding);
+        }
+        CacheCapture capture = request.cacheKey() != null && response.status() == 200 && !encoded
+                ? new CacheCapture(responseCache.getMaxEntryBytes()) : null;
+
+        return response.withBody(response.body()
+                .doOnNext(buffer -> {
+                    if (!encoded) {
+                        scanner.scan(buffer);
+                    }
+                    if (capture != null) {
+                        capture.append(buffer);
+                    }
                 })
-                .body(request.bodyToMono(String.class), String.class)
-                .exchangeToMono(clientResponse ->
-                        ServerResponse.status(clientResponse.statusCode())
-                                .headers(h -> h.addAll(clientResponse.headers().asHttpHeaders()))
-                                .body(clientResponse.bodyToMono(String.class), String.class)
-                )
-                .onErrorResume(error -> {
-                    log.error("Proxy error: {}", error.getMessage(), error);
-                    return ServerResponse.status(HttpStatus.BAD_GATEWAY)
-                            .bodyValue("Proxy error: " + error.getMessage());
-                });
+                .doFinally(signal -> {
+                    response.lease().complete(tokensOf(scanner.getInputTokens()) + tokensOf(scanner.getOutputTokens()));
+                    if (capture != null && signal == SignalType.ON_COMPLETE && !capture.isOverflowed()) {
+                        // 장애 조치로 다른 엔드포인트가 응답했을 수 있으므로 실제 응답한 계정 기준 키로 저장
+                        MediaType contentType = response.headers().getContentType();
+                        responseCache.store(request.fingerprint(account), 200,
+                                contentType != null ? contentType.toString() : null, capture.toByteArray());
+                    }
+                    String model = scanner.getModel() != null ? scanner.getModel()
+                            : request.modelFor(account) != null ? request.modelFor(account) : "unknown";
+                    Instant now = Instant.now();
+                    Long cost = costEngine.costNanos(Provider.detect(account.getBaseUrl()), model, now,
+                            scanner.getInputTokens(), scanner.getOutputTokens(),
+                            scanner.getCacheCreationTokens(), scanner.getCacheReadTokens());
+                    UsageEvent event = new UsageEvent(
+                            now, account.getId(), model, request.path(), response.status(),
+                            scanner.getInputTokens(), scanner.getOutputTokens(),
+                            scanner.getCacheCreationTokens(), scanner.getCacheReadTokens(), cost);
+                    usageBus.publish(usageRecorder.record(event), event);
+                    if (response.status() >= 400 || signal == SignalType.ON_ERROR) {
+                        usageBus.publishError(new ProxyError(event.timestamp(), account.getName(), request.path(),
+                                response.status(), signal == SignalType.ON_ERROR
+                                ? "Upstream stream aborted" : "Upstream returned " + response.status()));
+                    }
+                }));
+    }
+
+    /**
+     * DataBuffer 를 디코딩/버퍼링 없이 그대로 클라이언트로 흘려보낸다.
+     * SSE 응답은 청크마다 flush 하여 첫 토큰이 도착하는 즉시 전달되도록 한다.
+     */
+    private static BodyInserter<Flux<DataBuffer>, ReactiveHttpOutputMessage> passthrough(Flux<DataBuffer> body,
+                                                                                         MediaType contentType,
+                                                                                         RequestMetrics metrics) {
+        Flux<DataBuffer> measured = metrics == null ? body
+                : body.doOnNext(buffer -> metrics.onBytesOut(buffer.readableByteCount()));
+        if (isEventStream(contentType)) {
+            return (message, context) -> message.writeAndFlushWith(measured.map(Mono::just));
+        }
+        return BodyInserters.fromDataBuffers(measured);
+    }
+
+    /**
+     * 전체 기한이 지나면 업스트림 본문 구독을 끊고(커넥션 종료) 오류로 끝낸다. 요청당 타이머 하나만 쓴다.
+     */
+    private static Flux<DataBuffer> withDeadline(Flux<DataBuffer> body, long deadline) {
+        if (deadline == Long.MAX_VALUE) {
+            return body;
+        }
+        AtomicBoolean expired = new AtomicBoolean();
+        Mono<Long> timer = Mono.delay(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())))
+                .doOnNext(tick -> expired.set(true));
+        return body.takeUntilOther(timer)
+                .concatWith(Mono.defer(() -> expired.get()
+                        ? Mono.error(new TimeoutException("Upstream total timeout exceeded"))
+                        : Mono.empty()));
+    }
+
+    private static long tokensOf(Integer tokens) {
+        return tokens != null ? tokens : 0;
+    }
+
+    private static RequestMetrics metricsOf(ServerRequest request) {
+        return request.exchange().getAttribute(RequestMetrics.ATTRIBUTE);
+    }
+
+    // 장애 조치로 버리는 응답 본문은 끝까지 읽어 커넥션을 풀로 돌려보낸다
+    private static Mono<Void> discard(ResponseEntity<Flux<DataBuffer>> entity) {
+        return entity.getBody() == null ? Mono.empty()
+                : entity.getBody().doOnNext(DataBufferUtils::release).then().onErrorResume(e -> Mono.empty());
+    }
+
+    // 스트리밍 본문 전송 중 한도를 넘으면 WebClient 오류로 감싸져 올라온다
+    private static PayloadTooLargeException payloadTooLarge(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PayloadTooLargeException tooLarge) {
+                return tooLarge;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isEventStream(MediaType contentType) {
+        return contentType != null && MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType);
+    }
+
+    // 시작한 후보와 후보 목록에서의 위치
+    private record Started(int index, UpstreamRouter.Attempt attempt) {
+    }
+
+    // 요청 하나의 업스트림 시도 상태 (헤지 요청과 재시도 예산/전체 기한을 공유)
+    private static final class Dispatch {
+
+        final ProxyRequest request;
+        final List<Account> candidates;
+        final ResiliencePolicy policy;
+        final long deadline;
+        final AtomicInteger retries = new AtomicInteger();
+
+        Dispatch(ProxyRequest request, List<Account> candidates, ResiliencePolicy policy, long deadline) {
+            this.request = request;
+            this.candidates = candidates;
+            this.policy = policy;
+            this.deadline = deadline;
+        }
     }
 }
@@ -0,0 +1,184 @@
+package com.swiftcast.proxy;
+
+import com.swiftcast.model.Account;
+import com.swiftcast.model.Provider;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * 업스트림으로 보낼 요청. 본문이 bufferLimit 이하이면 장애 조치 시 재전송할 수 있도록 바이트로 보관하고,
+ * 넘으면 앞부분(body)만 보관하고 나머지(rest)는 한 번만 흘려보낸다.
+ *
+ * @param body 본문 전체, 스트리밍 요청이면 앞부분
+ * @param rest 스트리밍 요청의 나머지 본문 (전체가 body 에 있으면 null)
+ * @param contentLength 업스트림에 보낼 Content-Length (모르면 -1)
+ * @param model 요청 본문의 최상위 model 값 (클라이언트가 보낸 값, 없으면 null)
+ * @param ruleName 적용된 라우팅 규칙 이름 (없으면 null)
+ * @param rewrite 라우팅 규칙의 모델 재작성 (없으면 null)
+ * @param deterministic temperature 가 0 으로 명시된 요청 여부
+ * @param cacheKey 응답 캐시 키 (캐시 대상이 아니면 null)
+ */
+record ProxyRequest(ServerRequest server, byte[] body, Flux<DataBuffer> rest, long contentLength,
+                    String model, String ruleName, ModelRewrite rewrite, boolean deterministic, String cacheKey) {
+
+    static ProxyRequest of(ServerRequest server, byte[] body, Flux<DataBuffer> rest, long contentLength,
+                           String model, String ruleName, ModelRewrite rewrite) {
+        // 스트리밍 요청은 본문 전체를 볼 수 없으므로 결정적 요청으로 취급하지 않는다
+        boolean deterministic = rest == null && isDeterministic(body);
+        return new ProxyRequest(server, body, rest, contentLength, model, ruleName, rewrite, deterministic, null);
+    }
+
+    ProxyRequest withCacheKey(String key) {
+        return new ProxyRequest(server, body, rest, contentLength, model, ruleName, rewrite, deterministic, key);
+    }
+
+    /**
+     * account 로 보낼 본문 (재작성 대상 제공자면 모델을 바꾼 본문, 스트리밍 요청이면 앞부분)
+     */
+    byte[] bodyFor(Account account) {
+        return rewrite != null && rewrite.appliesTo(account) ? rewrite.body() : body;
+    }
+
+    /**
+     * account 로 보낼 Content-Length (모르면 -1)
+     */
+    long contentLengthFor(Account account) {
+        return contentLength < 0 ? -1 : contentLength + bodyFor(account).length - body.length;
+    }
+
+    /**
+     * account 로 보내는 모델 (사용량 기록용)
+     */
+    String modelFor(Account account) {
+        return rewrite != null && rewrite.appliesTo(account) ? rewrite.model() : model;
+    }
+
+    /**
+     * 본문을 다시 보낼 수 있는지 (장애 조치/캐시/요청 병합 가능 여부)
+     */
+    boolean replayable() {
+        return rest == null;
+    }
+
+    /**
+     * 스트리밍 요청의 업스트림 본문: 보관한 앞부분 + 클라이언트에서 들어오는 나머지
+     */
+    Flux<DataBuffer> streamingBody(Account account) {
+        byte[] head = bodyFor(account);
+        return Mono.fromSupplier(() -> (DataBuffer) DefaultDataBufferFactory.sharedInstance.wrap(head))
+                .concatWith(rest);
+    }
+
+    /**
+     * 업스트림으로 보내지 못한 스트리밍 본문을 읽어 버린다 (버퍼 반환)
+     */
+    Mono<Void> discardBody() {
+        return rest == null ? Mono.empty()
+                : rest.doOnNext(DataBufferUtils::release).then().onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * 업스트림으로 보낼 본문 크기 (스트리밍 요청은 Content-Length, 모르면 보관한 앞부분 크기)
+     */
+    long bodySize() {
+        return contentLength >= 0 ? contentLength : body.length;
+    }
+
+    String path() {
+        return server.path();
+    }
+
+    /**
+     * 업스트림 엔드포인트(제공자 + Base URL) + 메서드 + 경로/쿼리 + 응답을 바꾸는 헤더(anthropic-*, accept) + 모델 + 본문의
+     * SHA-256. 캐시/요청 병합 키로 사용한다. 같은 엔드포인트의 계정들은 같은 응답을 돌려주므로 계정 ID 는 넣지 않는다
+     * (라운드 로빈으로 주 계정이 바뀌어도 같은 키, 다른 엔드포인트로 장애 조치한 응답은 다른 키).
+     */
+    String fingerprint(Account account) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Provider.detect(account.getBaseUrl()).name().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(endpointOf(account).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(server.method().name().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(path().getBytes(StandardCharsets.UTF_8));
+            String query = server.uri().getRawQuery();
+            if (query != null) {
+                digest.update((byte) '?');
+                digest.update(query.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+            // 헤더 순서와 이름 대소문자에 상관없이 같은 키가 되도록 정렬
+            TreeMap<String, List<String>> varying = new TreeMap<>();
+            server.headers().asHttpHeaders().forEach((name, values) -> {
+                String lower = name.toLowerCase(Locale.ROOT);
+                if (lower.startsWith("anthropic-") || lower.equals("accept")) {
+                    varying.computeIfAbsent(lower, k -> new ArrayList<>()).addAll(values);
+                }
+            });
+            varying.forEach((name, values) -> {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                for (String value : values) {
+                    digest.update((byte) ':');
+                    digest.update(value.getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update((byte) '\n');
+            });
+            digest.update((byte) 0);
+            if (model != null) {
+                digest.update(model.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String endpointOf(Account account) {
+        String baseUrl = account.getBaseUrl() != null ? account.getBaseUrl().trim() : "";
+        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    private static boolean isDeterministic(byte[] body) {
+        if (body.length == 0) {
+            return false;
+        }
+        long span = JsonPeek.find(body, body.length, "temperature");
+        if (span == JsonPeek.NOT_FOUND) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(JsonPeek.string(body, span)) == 0.0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 라우팅 규칙의 모델 재작성. provider 가 null 이면 모든 계정에, 아니면 그 제공자의 계정으로 보낼 때만 적용한다.
+     *
+     * @param body 모델을 바꾼 본문 (스트리밍 요청이면 앞부분)
+     */
+    record ModelRewrite(Provider provider, String model, byte[] body) {
+
+        boolean appliesTo(Account account) {
+            return provider == null || provider == Provider.detect(account.getBaseUrl());
+        }
+    }
+}
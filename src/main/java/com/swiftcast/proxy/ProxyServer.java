@@ -1,38 +1,185 @@
 package com.swiftcast.proxy;
 
+import com.swiftcast.config.SwiftCastProperties;
+import com.swiftcast.startup.StartupTimeline;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.WebFilter;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
 
+/**
+ * 프록시 리스너. Reactor Netty HttpServer 를 직접 소유하여 런타임에 시작/중지/포트 재바인딩한다.
+ * <p>
+ * 중지 시에는 리스닝 소켓을 먼저 닫아 새 연결을 막고, 처리 중인 요청(SSE 스트림 포함)이 끝날 때까지
+ * drainTimeout 만큼 기다린 뒤 남은 연결을 닫는다.
+ */
 @Component
 @Slf4j
-public class ProxyServer {
+public class ProxyServer implements SmartLifecycle {
 
-    private boolean running = false;
-    private int port = 8080;
+    private final SwiftCastProperties.Server config;
+    private final ReactorHttpHandlerAdapter handlerAdapter;
 
-    public void start(int port) {
-        if (running) {
+    private LoopResources loops;
+    private volatile DisposableServer server;
+    private volatile int port;
+
+    public ProxyServer(@Qualifier("proxyRoutes") RouterFunction<ServerResponse> proxyRoutes,
+                       ObjectProvider<WebFilter> webFilters,
+                       SwiftCastProperties properties) {
+        this.config = properties.getServer();
+        this.port = config.getPort();
+
+        HandlerStrategies.Builder strategies = HandlerStrategies.builder();
+        webFilters.orderedStream().forEach(strategies::webFilter);
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(proxyRoutes, strategies.build());
+        this.handlerAdapter = new ReactorHttpHandlerAdapter(httpHandler);
+    }
+
+    /**
+     * 설정된 포트로 시작 (애플리케이션 시작 시 autoStart 이면 자동 호출)
+     */
+    @Override
+    public void start() {
+        start(port);
+    }
+
+    public synchronized void start(int port) {
+        if (server != null) {
             throw new IllegalStateException("Proxy server is already running");
         }
+        server = bind(port);
+        this.port = server.port();
+        StartupTimeline.mark("proxy.listening");
 
-        this.port = port;
-        this.running = true;
-
-        log.info("Proxy server started on port {}", port);
+        log.info("Proxy server started on {}:{}", config.getHost(), this.port);
     }
 
-    public void stop() {
-        if (running) {
-            running = false;
+    /**
+     * 처리 중인 요청을 drainTimeout 까지 기다린 뒤 중지
+     */
+    @Override
+    public synchronized void stop() {
+        DisposableServer current = server;
+        if (current != null) {
+            server = null;
+            drain(current);
             log.info("Proxy server stopped");
         }
     }
 
+    /**
+     * 새 포트로 재바인딩. 가능하면 새 리스너를 먼저 연 뒤 기존 리스너를 drain 하여 끊김 없이 전환한다.
+     */
+    public synchronized void rebind(int newPort) {
+        DisposableServer previous = server;
+        if (previous == null) {
+            start(newPort);
+            return;
+        }
+        // 같은 포트는 SO_REUSEPORT 가 있을 때만 동시에 바인딩할 수 있다
+        boolean overlap = newPort != previous.port() || isReusePortActive();
+        if (overlap) {
+            server = bind(newPort);
+            drain(previous);
+        } else {
+            server = null;
+            drain(previous);
+            server = bind(newPort);
+        }
+        this.port = server.port();
+
+        log.info("Proxy server rebound from port {} to {}", previous.port(), this.port);
+    }
+
+    @Override
     public boolean isRunning() {
-        return running;
+        return server != null;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return config.isAutoStart();
+    }
+
+    @Override
+    public int getPhase() {
+        // 사용량 기록기(DEFAULT_PHASE - 4096)보다 늦게 시작하고 먼저 멈춘다
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
     }
 
     public int getPort() {
         return port;
     }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (loops != null) {
+            loops.dispose();
+            loops = null;
+        }
+    }
+
+    private DisposableServer bind(int port) {
+        HttpServer httpServer = HttpServer.create()
+                .host(config.getHost())
+                .port(port)
+                .runOn(loopResources())
+                .option(ChannelOption.SO_BACKLOG, config.getBacklog())
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .idleTimeout(config.getIdleTimeout())
+                // 채널 그룹이 있어야 disposeNow 가 처리 중인 요청이 끝날 때까지 기다린다.
+                // 재바인딩 시 이전 리스너만 drain 하도록 그룹은 리스너마다 두고, 실행기는 공유 싱글턴을 써 스레드가 새지 않게 한다
+                .channelGroup(new DefaultChannelGroup(GlobalEventExecutor.INSTANCE))
+                .handle(handlerAdapter);
+
+        if (config.isReusePort()) {
+            if (Epoll.isAvailable()) {
+                httpServer = httpServer.option(EpollChannelOption.SO_REUSEPORT, true);
+            } else {
+                log.warn("SO_REUSEPORT requested but native epoll transport is not available, ignoring");
+            }
+        }
+        return httpServer.bindNow();
+    }
+
+    private void drain(DisposableServer target) {
+        try {
+            target.disposeNow(config.getDrainTimeout());
+        } catch (IllegalStateException e) {
+            // drainTimeout 안에 끝나지 않은 스트림은 강제로 닫힌다
+            log.warn("Proxy server did not drain within {}, closing remaining connections", config.getDrainTimeout());
+        }
+    }
+
+    private boolean isReusePortActive() {
+        return config.isReusePort() && Epoll.isAvailable();
+    }
+
+    private LoopResources loopResources() {
+        if (loops == null) {
+            int workers = config.getWorkerThreads() > 0
+                    ? config.getWorkerThreads()
+                    : Math.max(Runtime.getRuntime().availableProcessors(), 4);
+            loops = LoopResources.create("swiftcast-proxy", config.getSelectThreads(), workers, true);
+        }
+        return loops;
+    }
 }
@@ -0,0 +1,31 @@
+package com.swiftcast.proxy;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+
+/**
+ * 클라이언트 요청 본문.
+ * <p>
+ * bufferLimit 이하이면 head 가 본문 전체이고 rest 는 null 이다 (장애 조치/캐시/병합 가능).
+ * 넘으면 head 는 앞부분(라우팅/model 탐색용 peek window)만 담고, 나머지는 rest 로 업스트림에 그대로 흘려보낸다.
+ *
+ * @param contentLength 클라이언트가 선언한 Content-Length (없으면 -1)
+ */
+record RequestBody(byte[] head, Flux<DataBuffer> rest, long contentLength) {
+
+    static final RequestBody EMPTY = new RequestBody(new byte[0], null, 0);
+
+    boolean isComplete() {
+        return rest == null;
+    }
+
+    /**
+     * 라우팅 규칙의 토큰 추정에 쓰는 본문 크기
+     */
+    long estimatedSize() {
+        if (isComplete()) {
+            return head.length;
+        }
+        return contentLength >= 0 ? contentLength : head.length;
+    }
+}
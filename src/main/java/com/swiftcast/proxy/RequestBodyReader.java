@@ -0,0 +1,92 @@
+package com.swiftcast.proxy;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 요청 본문을 String 변환 없이 DataBuffer 그대로 읽는다.
+ * <p>
+ * 앞에서부터 bufferLimit 바이트까지만 모으고(head), 그 이후 버퍼는 모으지 않고 하나씩 흘려보내므로
+ * 요청당 할당량이 본문 크기와 상관없이 bufferLimit 으로 제한된다. maxBytes 를 넘으면 PayloadTooLargeException.
+ */
+final class RequestBodyReader {
+
+    private RequestBodyReader() {
+    }
+
+    static <T> Mono<T> read(Flux<DataBuffer> source, int bufferLimit, long maxBytes, long contentLength,
+                            Function<RequestBody, Mono<T>> handler) {
+        ByteCounter counter = new ByteCounter(bufferLimit, maxBytes);
+        return source
+                .<DataBuffer>handle((buffer, sink) -> {
+                    if (counter.add(buffer.readableByteCount())) {
+                        sink.next(buffer);
+                    } else {
+                        DataBufferUtils.release(buffer);
+                        sink.error(new PayloadTooLargeException(maxBytes));
+                    }
+                })
+                // head 는 한 덩어리로, bufferLimit 을 넘은 뒤로는 버퍼 하나씩 방출
+                .bufferUntil(buffer -> counter.isOverLimit())
+                .switchOnFirst((first, chunks) -> {
+                    if (first.isOnError()) {
+                        return Flux.error(first.getThrowable());
+                    }
+                    if (!first.hasValue()) {
+                        return handler.apply(RequestBody.EMPTY).flux();
+                    }
+                    byte[] head = toBytes(first.get());
+                    if (!counter.isOverLimit()) {
+                        // 본문 전체가 head 에 들어왔다
+                        return handler.apply(new RequestBody(head, null, contentLength)).flux();
+                    }
+                    Flux<DataBuffer> rest = chunks.skip(1).concatMapIterable(Function.identity());
+                    return handler.apply(new RequestBody(head, rest, contentLength)).flux();
+                }, false)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                // next() 는 구독을 취소해 스트리밍 중인 본문까지 끊으므로 완료를 기다린다
+                .singleOrEmpty();
+    }
+
+    private static byte[] toBytes(List<DataBuffer> buffers) {
+        int size = 0;
+        for (DataBuffer buffer : buffers) {
+            size += buffer.readableByteCount();
+        }
+        byte[] bytes = new byte[size];
+        int offset = 0;
+        for (DataBuffer buffer : buffers) {
+            int length = buffer.readableByteCount();
+            buffer.read(bytes, offset, length);
+            offset += length;
+            DataBufferUtils.release(buffer);
+        }
+        return bytes;
+    }
+
+    private static final class ByteCounter {
+
+        private final int bufferLimit;
+        private final long maxBytes;
+        private long total;
+
+        ByteCounter(int bufferLimit, long maxBytes) {
+            this.bufferLimit = bufferLimit;
+            this.maxBytes = maxBytes;
+        }
+
+        boolean add(int bytes) {
+            total += bytes;
+            return total <= maxBytes;
+        }
+
+        boolean isOverLimit() {
+            return total > bufferLimit;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.swiftcast.proxy;
+
+import com.swiftcast.config.SwiftCastProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 동일한 업스트림 요청 병합 (single-flight).
+ * <p>
+ * 같은 키의 요청이 응답 헤더 전이면 새 업스트림 호출을 만들지 않고 리더의 응답을 기다린다.
+ * 응답 헤더가 도착하면 더 이상 합류를 받지 않으며, 합류한 요청이 없으면 본문을 버퍼링 없이 그대로 흘려보낸다.
+ * 합류한 요청이 있을 때만 본문을 힙 바이트 배열로 복사해 replay 하고, 리더 클라이언트가 끊어져도 끝까지 읽어 전달한다.
+ */
+@Component
+@Slf4j
+public class RequestCoalescer {
+
+    private final SwiftCastProperties.Coalescing config;
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    public RequestCoalescer(SwiftCastProperties properties) {
+        this.config = properties.getCoalescing();
+    }
+
+    /**
+     * 병합 대상 여부. 설정된 경로(모델 목록, 토큰 카운트 등)이거나, 켜져 있으면 결정적 요청도 병합한다.
+     */
+    public boolean isEligible(ProxyRequest request) {
+        // 스트리밍 본문은 한 번만 읽을 수 있어 키 계산/공유가 불가능
+        if (!config.isEnabled() || !request.replayable() || request.body().length > config.getMaxRequestBytes()) {
+            return false;
+        }
+        HttpMethod method = request.server().method();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.POST.equals(method)) {
+            return false;
+        }
+        return (config.isDeterministic() && request.deterministic()) || matchesPath(request.path(), config.getPaths());
+    }
+
+    public Mono<SharedResponse> execute(String key, Supplier<Mono<UpstreamResponse>> upstream) {
+        return Mono.defer(() -> {
+            for (;;) {
+                Flight created = new Flight();
+                Flight flight = inFlight.putIfAbsent(key, created);
+                if (flight == null) {
+                    return lead(key, created, upstream);
+                }
+                if (flight.join()) {
+                    coalesced.increment();
+                    log.debug("Coalesced request onto in-flight call {}", key);
+                    // 리더가 응답 헤더 전에 취소되면 다시 시도한다 (합류했던 요청 중 하나가 새 리더가 된다)
+                    return flight.response.asMono().switchIfEmpty(Mono.defer(() -> execute(key, upstream)));
+                }
+                // 응답 헤더가 이미 도착해 합류할 수 없는 호출 (곧 목록에서 빠진다)
+                inFlight.remove(key, flight);
+            }
+        });
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private Mono<SharedResponse> lead(String key, Flight flight, Supplier<Mono<UpstreamResponse>> upstream) {
+        return Mono.defer(upstream)
+                .map(response -> {
+                    inFlight.remove(key, flight);
+                    if (flight.seal() == 0) {
+                        // 합류한 요청이 없으면 버퍼링 없이 그대로 전달
+                        return new SharedResponse(response.status(), response.headers(), response.body());
+                    }
+                    Flux<byte[]> cached = response.body()
+                            .map(RequestCoalescer::copyAndRelease)
+                            .cache();
+                    // 구독자와 무관하게 업스트림을 끝까지 읽는다
+                    cached.subscribe(bytes -> { }, error -> { });
+                    SharedResponse shared = new SharedResponse(response.status(), response.headers(),
+                            cached.<DataBuffer>map(DefaultDataBufferFactory.sharedInstance::wrap));
+                    flight.response.tryEmitValue(shared);
+                    return shared;
+                })
+                .doOnError(error -> {
+                    inFlight.remove(key, flight);
+                    flight.seal();
+                    flight.response.tryEmitError(error);
+                })
+                .doOnCancel(() -> {
+                    inFlight.remove(key, flight);
+                    flight.seal();
+                    flight.response.tryEmitEmpty();
+                });
+    }
+
+    private static byte[] copyAndRelease(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static boolean matchesPath(String path, List<String> paths) {
+        for (String prefix : paths) {
+            if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 병합된 요청들이 공유하는 응답. 합류한 요청이 있으면 body 는 replay 되어 여러 번 구독할 수 있고,
+     * 없으면 리더만 한 번 구독한다.
+     */
+    public record SharedResponse(int status, HttpHeaders headers, Flux<DataBuffer> body) {
+    }
+
+    // 처리 중인 업스트림 호출 하나. 응답 헤더가 도착하면 seal 되어 더 이상 합류할 수 없다
+    private static final class Flight {
+
+        final Sinks.One<SharedResponse> response = Sinks.one();
+        // 리더를 포함한 참여 요청 수 (seal 후 -1)
+        final AtomicInteger participants = new AtomicInteger(1);
+
+        boolean join() {
+            for (;;) {
+                int current = participants.get();
+                if (current < 0) {
+                    return false;
+                }
+                if (participants.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        // 합류한 요청 수 (리더 제외)
+        int seal() {
+            return Math.max(0, participants.getAndSet(-1) - 1);
+        }
+    }
+}
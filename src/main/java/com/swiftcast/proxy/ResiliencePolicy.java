@@ -0,0 +1,24 @@
+package com.swiftcast.proxy;
+
+import java.time.Duration;
+
+/**
+ * 요청 하나에 적용할 업스트림 타임아웃/재시도/헤지 정책
+ *
+ * @param firstByteTimeout 요청을 보낸 뒤 응답 헤더까지 기다리는 시간
+ * @param totalTimeout 응답 본문까지 포함한 전체 시간 (0 이하면 제한 없음)
+ * @param maxRetries 백오프 후 다시 보내는 최대 횟수
+ * @param hedge 응답이 늦을 때 두 번째 요청을 보낼지 여부
+ */
+record ResiliencePolicy(Duration firstByteTimeout, Duration totalTimeout, int maxRetries, boolean hedge) {
+
+    /**
+     * 전체 기한 (System.nanoTime 기준), 제한이 없으면 Long.MAX_VALUE
+     */
+    long deadline(long startNanos) {
+        if (totalTimeout == null || totalTimeout.isZero() || totalTimeout.isNegative()) {
+            return Long.MAX_VALUE;
+        }
+        return startNanos + totalTimeout.toNanos();
+    }
+}
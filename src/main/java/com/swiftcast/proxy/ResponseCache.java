@@ -0,0 +1,284 @@
+package com.swiftcast.proxy;
+
+import com.swiftcast.config.SwiftCastProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 결정적(temperature 0) 요청에 대한 응답 캐시 (opt-in).
+ * <p>
+ * 키는 업스트림 엔드포인트 + 메서드 + 경로 + 헤더 + 모델 + 요청 본문의 SHA-256 이다 ({@link ProxyRequest#fingerprint}).
+ * 메모리 티어는 바이트 크기 기준 LRU, 디스크 티어는 항목별 파일로 재시작 후에도 유지된다.
+ * 디스크 항목은 힙으로 읽어 파일을 열어 두지 않는다 (Windows 에서 매핑된 파일은 교체/삭제할 수 없다).
+ * 스트리밍 응답은 받은 SSE 이벤트를 그대로 저장해 재생한다.
+ */
+@Component
+@Slf4j
+public class ResponseCache {
+
+    private static final int FILE_MAGIC = 0x53574331; // "SWC1"
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final SwiftCastProperties.Cache config;
+    private final Path directory;
+    // 디스크 읽기/쓰기는 가상 스레드에서 (이벤트 루프 블로킹 금지)
+    private final Scheduler blockingScheduler;
+
+    // access-order LinkedHashMap = LRU
+    private final LinkedHashMap<String, CachedResponse> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    public ResponseCache(SwiftCastProperties properties, Scheduler blockingScheduler) {
+        this.config = properties.getCache();
+        this.blockingScheduler = blockingScheduler;
+        this.directory = Paths.get(config.getDirectory());
+        if (config.isEnabled() && config.isDiskEnabled()) {
+            try {
+                Files.createDirectories(directory);
+                diskBytes.set(directorySize());
+            } catch (IOException e) {
+                log.warn("Response cache directory unavailable: {}", e.getMessage());
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 캐시 대상 여부. temperature 가 0 으로 명시된 요청만 결정적인 것으로 본다.
+     */
+    public boolean isCacheable(ProxyRequest request) {
+        return config.isEnabled() && request.deterministic() && request.body().length <= config.getMaxRequestBytes();
+    }
+
+    public Mono<CachedResponse> lookup(String key) {
+        CachedResponse cached = memoryGet(key);
+        if (cached != null) {
+            return Mono.just(hit(cached));
+        }
+        if (!config.isDiskEnabled()) {
+            misses.increment();
+            return Mono.empty();
+        }
+        // 디스크 티어 조회는 이벤트 루프 밖에서
+        return Mono.fromCallable(() -> readDisk(key))
+                .subscribeOn(blockingScheduler)
+                .map(this::hit)
+                .switchIfEmpty(Mono.fromRunnable(misses::increment));
+    }
+
+    public void store(String key, int status, String contentType, byte[] body) {
+        CachedResponse response = new CachedResponse(status, contentType, System.currentTimeMillis(), ByteBuffer.wrap(body));
+        memoryPut(key, response);
+        if (config.isDiskEnabled()) {
+            blockingScheduler.schedule(() -> writeDisk(key, response, body));
+        }
+    }
+
+    public int getMaxEntryBytes() {
+        return config.getMaxEntryBytes();
+    }
+
+    public CacheStats getStats() {
+        synchronized (memory) {
+            return new CacheStats(hits.sum(), misses.sum(), bytesSaved.sum(), memory.size(), memoryBytes, diskBytes.get());
+        }
+    }
+
+    private CachedResponse hit(CachedResponse cached) {
+        hits.increment();
+        bytesSaved.add(cached.size());
+        return cached;
+    }
+
+    private CachedResponse memoryGet(String key) {
+        synchronized (memory) {
+            CachedResponse cached = memory.get(key);
+            if (cached != null && isExpired(cached)) {
+                memory.remove(key);
+                memoryBytes -= cached.size();
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private void memoryPut(String key, CachedResponse response) {
+        if (response.size() > config.getMaxEntryBytes()) {
+            return;
+        }
+        synchronized (memory) {
+            CachedResponse previous = memory.put(key, response);
+            if (previous != null) {
+                memoryBytes -= previous.size();
+            }
+            memoryBytes += response.size();
+
+            Iterator<Map.Entry<String, CachedResponse>> eldest = memory.entrySet().iterator();
+            while (memoryBytes > config.getMaxMemoryBytes() && eldest.hasNext()) {
+                memoryBytes -= eldest.next().getValue().size();
+                eldest.remove();
+            }
+        }
+    }
+
+    private boolean isExpired(CachedResponse cached) {
+        return System.currentTimeMillis() - cached.createdAt() > config.getTtl().toMillis();
+    }
+
+    // 파일 형식: magic(int) status(int) createdAt(long) contentTypeLength(int) contentType bodyLength(int) body
+    private CachedResponse readDisk(String key) throws IOException {
+        Path file = directory.resolve(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        ByteBuffer entry;
+        try {
+            entry = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (entry.remaining() < 24 || entry.getInt() != FILE_MAGIC) {
+            deleteDisk(file);
+            return null;
+        }
+        int status = entry.getInt();
+        long createdAt = entry.getLong();
+        int contentTypeLength = entry.getInt();
+        if (contentTypeLength < 0 || contentTypeLength > entry.remaining() - 4) {
+            deleteDisk(file);
+            return null;
+        }
+        byte[] contentType = new byte[contentTypeLength];
+        entry.get(contentType);
+        int length = entry.getInt();
+        if (length < 0 || length > entry.remaining()) {
+            deleteDisk(file);
+            return null;
+        }
+        ByteBuffer body = entry.slice(entry.position(), length);
+
+        CachedResponse cached = new CachedResponse(status,
+                contentType.length > 0 ? new String(contentType, StandardCharsets.UTF_8) : null, createdAt, body);
+        if (isExpired(cached)) {
+            deleteDisk(file);
+            return null;
+        }
+        memoryPut(key, cached);
+        return cached;
+    }
+
+    private void writeDisk(String key, CachedResponse response, byte[] body) {
+        byte[] contentType = response.contentType() != null
+                ? response.contentType().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteBuffer header = ByteBuffer.allocate(24 + contentType.length);
+        header.putInt(FILE_MAGIC).putInt(response.status()).putLong(response.createdAt())
+                .putInt(contentType.length).put(contentType).putInt(body.length).flip();
+
+        Path file = directory.resolve(key);
+        Path temp = directory.resolve(key + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(new ByteBuffer[]{header, ByteBuffer.wrap(body)});
+        } catch (IOException e) {
+            log.warn("Failed to write cache entry: {}", e.getMessage());
+            return;
+        }
+        try {
+            // 같은 키를 다시 쓰면 덮어쓰는 파일 크기만큼 빼야 합계가 늘어나기만 하지 않는다
+            long replaced = sizeOrZero(file);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (diskBytes.addAndGet(header.capacity() + body.length - replaced) > config.getMaxDiskBytes()) {
+                evictDisk();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to store cache entry: {}", e.getMessage());
+        }
+    }
+
+    // 오래된 파일부터 삭제하여 디스크 한도의 90% 까지 줄인다
+    private synchronized void evictDisk() {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> oldestFirst = files
+                    .filter(ResponseCache::isEntry)
+                    .sorted(Comparator.comparingLong(ResponseCache::lastModified))
+                    .toList();
+            long target = config.getMaxDiskBytes() * 9 / 10;
+            for (Path file : oldestFirst) {
+                if (diskBytes.get() <= target) {
+                    break;
+                }
+                deleteDisk(file);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to evict cache entries: {}", e.getMessage());
+        }
+    }
+
+    private static long sizeOrZero(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void deleteDisk(Path file) {
+        try {
+            long size = Files.size(file);
+            if (Files.deleteIfExists(file)) {
+                diskBytes.addAndGet(-size);
+            }
+        } catch (IOException e) {
+            log.debug("Failed to delete cache entry {}: {}", file, e.getMessage());
+        }
+    }
+
+    // 쓰는 중인 임시 파일은 한도 계산/삭제 대상이 아니다
+    private static boolean isEntry(Path file) {
+        return Files.isRegularFile(file) && !file.getFileName().toString().endsWith(TEMP_SUFFIX);
+    }
+
+    private long directorySize() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(ResponseCache::isEntry).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
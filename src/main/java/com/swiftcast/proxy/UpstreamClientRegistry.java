@@ -0,0 +1,56 @@
+package com.swiftcast.proxy;
+
+import com.swiftcast.model.Account;
+import com.swiftcast.model.AccountSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 계정별 WebClient/헤더 재작성기 캐시. 모든 클라이언트는 공유 커넥션 풀을 사용하며,
+ * 계정의 baseUrl/apiKey 가 바뀐 경우에만 다시 생성된다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UpstreamClientRegistry {
+
+    private final WebClient.Builder webClientBuilder;
+    private final ConcurrentMap<String, UpstreamClient> clients = new ConcurrentHashMap<>();
+
+    UpstreamClient clientFor(Account account) {
+        UpstreamClient cached = clients.get(account.getId());
+        if (cached != null && cached.matches(account)) {
+            return cached;
+        }
+        return clients.compute(account.getId(), (id, existing) ->
+                existing != null && existing.matches(account) ? existing : build(account));
+    }
+
+    @EventListener
+    public void onAccountsChanged(AccountSnapshot snapshot) {
+        // 삭제된 계정의 클라이언트 정리
+        clients.keySet().retainAll(snapshot.byId().keySet());
+    }
+
+    private UpstreamClient build(Account account) {
+        log.debug("Building upstream client for account: {}", account.getName());
+        // 인증/버전 헤더는 HeaderRewriter 가 요청마다 넣는다
+        WebClient client = webClientBuilder.clone()
+                .baseUrl(account.getBaseUrl())
+                .build();
+        return new UpstreamClient(account.getBaseUrl(), account.getApiKey(), client, HeaderRewriter.forAccount(account));
+    }
+
+    record UpstreamClient(String baseUrl, String apiKey, WebClient client, HeaderRewriter headers) {
+        boolean matches(Account account) {
+            return Objects.equals(baseUrl, account.getBaseUrl()) && Objects.equals(apiKey, account.getApiKey());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.swiftcast.proxy;
+
+import com.swiftcast.config.SwiftCastProperties;
+import com.swiftcast.metrics.ProxyMetrics;
+import com.swiftcast.model.Account;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 업스트림 타임아웃/재시도/헤지 정책.
+ * <p>
+ * 정책은 시작 시 경로 규칙별로 한 번만 만들고, 헤지 지연은 계정별 응답 헤더 시간 히스토그램의 백분위를
+ * 1초마다 다시 읽어 캐시한다 (요청마다 히스토그램을 훑지 않는다).
+ */
+@Component
+public class UpstreamResilience {
+
+    private static final long HEDGE_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SwiftCastProperties.Resilience config;
+    private final ProxyMetrics metrics;
+    private final ResiliencePolicy defaults;
+    private final List<RoutePolicy> routes;
+    private final ConcurrentMap<String, HedgeDelay> hedgeDelays = new ConcurrentHashMap<>();
+
+    public UpstreamResilience(SwiftCastProperties properties, ProxyMetrics metrics) {
+        this.config = properties.getResilience();
+        this.metrics = metrics;
+        this.defaults = new ResiliencePolicy(config.getFirstByteTimeout(), config.getTotalTimeout(),
+                config.getMaxRetries(), config.isHedge());
+        this.routes = config.getRoutes().stream()
+                .filter(route -> route.getPathPrefix() != null)
+                .map(route -> new RoutePolicy(route.getPathPrefix(), new ResiliencePolicy(
+                        route.getFirstByteTimeout() != null ? route.getFirstByteTimeout() : defaults.firstByteTimeout(),
+                        route.getTotalTimeout() != null ? route.getTotalTimeout() : defaults.totalTimeout(),
+                        route.getMaxRetries() != null ? route.getMaxRetries() : defaults.maxRetries(),
+                        route.getHedge() != null ? route.getHedge() : defaults.hedge())))
+                .toList();
+    }
+
+    ResiliencePolicy policyFor(String path) {
+        for (RoutePolicy route : routes) {
+            if (path.startsWith(route.pathPrefix())) {
+                return route.policy();
+            }
+        }
+        return defaults;
+    }
+
+    /**
+     * retry 번째 재시도 전 대기 시간 (full jitter: 0 ~ min(max, base * 2^retry) 사이 임의 값)
+     */
+    Duration backoff(int retry) {
+        long base = config.getBackoffBase().toNanos();
+        long cap = config.getBackoffMax().toNanos();
+        long ceiling = retry >= 30 ? cap : Math.min(cap, base << retry);
+        return Duration.ofNanos(ThreadLocalRandom.current().nextLong(Math.max(1, ceiling)));
+    }
+
+    /**
+     * 헤지 요청을 보내기 전 기다릴 시간 (ns). 기록이 부족하면 -1 (헤지하지 않음).
+     */
+    long hedgeDelayNanos(Account account) {
+        long now = System.nanoTime();
+        HedgeDelay cached = hedgeDelays.get(account.getName());
+        if (cached != null && now - cached.computedAt() < HEDGE_REFRESH_NANOS) {
+            return cached.delayNanos();
+        }
+        double millis = metrics.upstreamResponsePercentileMillis(account.getName(),
+                config.getHedgePercentile(), config.getHedgeMinSamples());
+        long delay = millis < 0 ? -1
+                : Math.max(config.getHedgeMinDelay().toNanos(), (long) (millis * 1_000_000));
+        hedgeDelays.put(account.getName(), new HedgeDelay(now, delay));
+        return delay;
+    }
+
+    /**
+     * 같은 요청을 다시 보내도 결과가 같은 메서드 (응답 헤더 이후 5xx 도 재시도 가능)
+     */
+    static boolean isIdempotent(HttpMethod method) {
+        return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method);
+    }
+
+    /**
+     * 응답 헤더 전 오류 뒤에 같은 요청을 다시 보내도 되는지. 멱등 메서드는 항상 허용하고, 그 밖의 요청(POST /v1/messages 등)은
+     * 업스트림에 전달되지 않은 것이 확실한 연결 단계 오류(연결 거부, 연결 타임아웃)일 때만 허용한다.
+     * 첫 바이트 타임아웃 등은 업스트림이 이미 처리 중일 수 있어 다시 보내면 중복 과금된다.
+     */
+    static boolean isSafeToResend(HttpMethod method, Throwable error) {
+        if (isIdempotent(method)) {
+            return true;
+        }
+        // Netty 의 연결 거부/연결 타임아웃 예외는 모두 ConnectException 이며 WebClient 예외로 감싸져 올라온다
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record RoutePolicy(String pathPrefix, ResiliencePolicy policy) {
+    }
+
+    private record HedgeDelay(long computedAt, long delayNanos) {
+    }
+}
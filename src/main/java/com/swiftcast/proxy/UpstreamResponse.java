@@ -0,0 +1,38 @@
+package com.swiftcast.proxy;
+
+import com.swiftcast.model.Account;
+import com.swiftcast.routing.RateGovernor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 계정 선택/장애 조치가 끝난 업스트림 응답. body 는 한 번만 구독할 수 있다.
+ * 계정 시도와 lease 는 본문 전송이 끝나거나 취소될 때 반납되므로, 응답을 쓰지 않고 버릴 때는 releaseBody 를 호출한다.
+ */
+record UpstreamResponse(Account account, int status, HttpHeaders headers, Flux<DataBuffer> body,
+                        RateGovernor.Lease lease) {
+
+    UpstreamResponse withBody(Flux<DataBuffer> newBody) {
+        return new UpstreamResponse(account, status, headers, newBody, lease);
+    }
+
+    /**
+     * 클라이언트로 보내지 않는 응답의 본문을 구독 즉시 취소하여 커넥션과 허가를 반납한다.
+     * 이미 구독된 본문이면 아무것도 하지 않는다.
+     */
+    void releaseBody() {
+        body.doOnNext(DataBufferUtils::release).subscribe(buffer -> { }, error -> { }).dispose();
+    }
+
+    /**
+     * 첫 구독만 원본 본문을 받고, 이후 구독(releaseBody 등)은 빈 본문을 받도록 감싼다.
+     */
+    static Flux<DataBuffer> once(Flux<DataBuffer> body) {
+        AtomicBoolean subscribed = new AtomicBoolean();
+        return Flux.defer(() -> subscribed.compareAndSet(false, true) ? body : Flux.empty());
+    }
+}
@@ -0,0 +1,227 @@
+package com.swiftcast.proxy;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 업스트림 응답 바이트를 흘려보내면서 usage 정보를 증분 추출하는 스캐너.
+ * <p>
+ * SSE(message_start / message_delta)와 일반 JSON 응답 모두에서 {@code "input_tokens"},
+ * {@code "output_tokens"}, {@code "model"} 값을 찾는다. OpenAI 호환 GLM 응답의
+ * {@code "prompt_tokens"} / {@code "completion_tokens"} 도 같은 필드로 취급한다.
+ * 프롬프트 캐시 토큰({@code "cache_creation_input_tokens"}, {@code "cache_read_input_tokens"})은 단가가 달라 따로 모은다.
+ * 본문을 디코딩하거나 다시 버퍼링하지 않고 바이트 단위 상태 머신으로만 동작하므로
+ * 이벤트가 DataBuffer 경계에서 잘려도 이어서 처리된다. 요청 하나당 인스턴스 하나를 사용한다 (thread-safe 아님).
+ */
+public final class UsageScanner {
+
+    private static final byte[][] KEYS = {
+            bytes("input_tokens"),
+            bytes("output_tokens"),
+            bytes("model"),
+            bytes("prompt_tokens"),
+            bytes("completion_tokens"),
+            bytes("cache_creation_input_tokens"),
+            bytes("cache_read_input_tokens"),
+    };
+    private static final int KEY_INPUT = 0;
+    private static final int KEY_OUTPUT = 1;
+    private static final int KEY_MODEL = 2;
+    private static final int KEY_PROMPT = 3;
+    private static final int KEY_COMPLETION = 4;
+    private static final int KEY_CACHE_CREATION = 5;
+    private static final int KEY_CACHE_READ = 6;
+
+    private static final int MAX_KEY_LENGTH = 32;
+    private static final int MAX_MODEL_LENGTH = 128;
+
+    private static final int SCAN = 0;
+    private static final int STRING = 1;
+    private static final int AFTER_STRING = 2;
+    private static final int VALUE = 3;
+    private static final int NUMBER = 4;
+    private static final int MODEL_VALUE = 5;
+
+    private int state = SCAN;
+    private boolean escaped;
+
+    private final byte[] keyBuf = new byte[MAX_KEY_LENGTH];
+    private int keyLength;
+    private int currentKey = -1;
+
+    private final byte[] modelBuf = new byte[MAX_MODEL_LENGTH];
+    private int modelLength;
+
+    private long number;
+
+    private long inputTokens = -1;
+    private long outputTokens = -1;
+    private long cacheCreationTokens = -1;
+    private long cacheReadTokens = -1;
+    private String model;
+
+    public void scan(DataBuffer buffer) {
+        int end = buffer.writePosition();
+        for (int i = buffer.readPosition(); i < end; i++) {
+            accept(buffer.getByte(i));
+        }
+    }
+
+    public void scan(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            accept(bytes[i]);
+        }
+    }
+
+    public Integer getInputTokens() {
+        return inputTokens < 0 ? null : (int) inputTokens;
+    }
+
+    public Integer getOutputTokens() {
+        return outputTokens < 0 ? null : (int) outputTokens;
+    }
+
+    public Integer getCacheCreationTokens() {
+        return cacheCreationTokens < 0 ? null : (int) cacheCreationTokens;
+    }
+
+    public Integer getCacheReadTokens() {
+        return cacheReadTokens < 0 ? null : (int) cacheReadTokens;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    private void accept(byte b) {
+        switch (state) {
+            case STRING -> acceptString(b);
+            case AFTER_STRING -> {
+                if (isWhitespace(b)) {
+                    return;
+                }
+                if (b == ':' && currentKey >= 0) {
+                    state = VALUE;
+                    return;
+                }
+                state = SCAN;
+                acceptScan(b);
+            }
+            case VALUE -> {
+                if (isWhitespace(b)) {
+                    return;
+                }
+                if (b >= '0' && b <= '9' && currentKey != KEY_MODEL) {
+                    number = b - '0';
+                    state = NUMBER;
+                } else if (b == '"' && currentKey == KEY_MODEL) {
+                    modelLength = 0;
+                    escaped = false;
+                    state = MODEL_VALUE;
+                } else {
+                    state = SCAN;
+                    acceptScan(b);
+                }
+            }
+            case NUMBER -> {
+                if (b >= '0' && b <= '9') {
+                    number = number * 10 + (b - '0');
+                    return;
+                }
+                commitNumber();
+                state = SCAN;
+                acceptScan(b);
+            }
+            case MODEL_VALUE -> acceptModel(b);
+            default -> acceptScan(b);
+        }
+    }
+
+    private void acceptScan(byte b) {
+        if (b == '"') {
+            keyLength = 0;
+            escaped = false;
+            state = STRING;
+        }
+    }
+
+    private void acceptString(byte b) {
+        if (escaped) {
+            escaped = false;
+            keyLength = MAX_KEY_LENGTH + 1;
+            return;
+        }
+        if (b == '\\') {
+            escaped = true;
+            return;
+        }
+        if (b == '"') {
+            currentKey = matchKey();
+            state = AFTER_STRING;
+            return;
+        }
+        if (keyLength < MAX_KEY_LENGTH) {
+            keyBuf[keyLength] = b;
+        }
+        keyLength++;
+    }
+
+    private void acceptModel(byte b) {
+        if (escaped) {
+            escaped = false;
+        } else if (b == '\\') {
+            escaped = true;
+            return;
+        } else if (b == '"') {
+            if (model == null && modelLength > 0 && modelLength <= MAX_MODEL_LENGTH) {
+                model = new String(modelBuf, 0, modelLength, StandardCharsets.UTF_8);
+            }
+            state = SCAN;
+            return;
+        }
+        if (modelLength < MAX_MODEL_LENGTH) {
+            modelBuf[modelLength] = b;
+        }
+        modelLength++;
+    }
+
+    private void commitNumber() {
+        switch (currentKey) {
+            case KEY_INPUT, KEY_PROMPT -> inputTokens = number;
+            case KEY_OUTPUT, KEY_COMPLETION -> outputTokens = number;
+            case KEY_CACHE_CREATION -> cacheCreationTokens = number;
+            case KEY_CACHE_READ -> cacheReadTokens = number;
+            default -> {
+            }
+        }
+    }
+
+    private int matchKey() {
+        if (keyLength > MAX_KEY_LENGTH) {
+            return -1;
+        }
+        outer:
+        for (int k = 0; k < KEYS.length; k++) {
+            byte[] key = KEYS[k];
+            if (key.length != keyLength) {
+                continue;
+            }
+            for (int i = 0; i < keyLength; i++) {
+                if (key[i] != keyBuf[i]) {
+                    continue outer;
+                }
+            }
+            return k;
+        }
+        return -1;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,23 +1,24 @@
 package com.swiftcast.repository;
 
 import com.swiftcast.model.UsageLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 
+// 합계 조회는 usage_rollups 집계 테이블을 사용 (UsageRollupService)
 @Repository
 public interface UsageLogRepository extends JpaRepository<UsageLog, String> {
 
-    List<UsageLog> findByAccountIdOrderByTimestampDesc(String accountId);
+    // 키셋 페이지네이션: 첫 페이지
+    List<UsageLog> findByAccountIdOrderByTimestampDescIdDesc(String accountId, Pageable pageable);
 
-    @Query("SELECT SUM(u.inputTokens) FROM UsageLog u WHERE u.accountId = :accountId")
-    Long sumInputTokensByAccountId(String accountId);
-
-    @Query("SELECT SUM(u.outputTokens) FROM UsageLog u WHERE u.accountId = :accountId")
-    Long sumOutputTokensByAccountId(String accountId);
-
-    @Query("SELECT SUM(u.costUsd) FROM UsageLog u WHERE u.accountId = :accountId")
-    Double sumCostByAccountId(String accountId);
+    // 키셋 페이지네이션: 이전 페이지의 마지막 (timestamp, id) 다음부터
+    @Query("SELECT u FROM UsageLog u WHERE u.accountId = :accountId " +
+           "AND (u.timestamp < :timestamp OR (u.timestamp = :timestamp AND u.id < :id)) " +
+           "ORDER BY u.timestamp DESC, u.id DESC")
+    List<UsageLog> findPageAfter(String accountId, Instant timestamp, String id, Pageable pageable);
 }
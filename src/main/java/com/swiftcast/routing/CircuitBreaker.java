@@ -0,0 +1,85 @@
+package com.swiftcast.routing;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 계정별 lock-free 서킷 브레이커.
+ * 연속 실패가 임계값을 넘으면 일정 시간 열리고, 이후 한 번의 시험 요청(half-open)이 성공하면 닫힌다.
+ */
+public class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    // 0 이면 닫힘, 그 외에는 열림 해제 시각 (epoch millis)
+    private final AtomicLong openUntil = new AtomicLong();
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * 요청을 보내도 되는지 확인한다. half-open 상태에서는 한 요청만 시험 요청(PROBE)으로 통과시킨다.
+     */
+    public Permit tryAcquire() {
+        long until = openUntil.get();
+        if (until == 0) {
+            return Permit.ALLOWED;
+        }
+        if (System.currentTimeMillis() < until) {
+            return Permit.DENIED;
+        }
+        return probing.compareAndSet(false, true) ? Permit.PROBE : Permit.DENIED;
+    }
+
+    /**
+     * 결과를 남기지 못하고 끝난 시험 요청(취소 등)의 허가를 돌려준다. 다음 요청이 다시 시험한다.
+     */
+    public void abortProbe() {
+        probing.set(false);
+    }
+
+    public boolean isOpen() {
+        long until = openUntil.get();
+        return until != 0 && System.currentTimeMillis() < until;
+    }
+
+    /**
+     * 허가받은 요청의 성공. 열린 서킷은 시험 요청(PROBE)의 성공으로만 닫힌다
+     * (서킷이 열리기 전에 시작된 느린 요청이 늦게 성공해도 닫지 않는다).
+     */
+    public void onSuccess(Permit permit) {
+        if (permit == Permit.PROBE) {
+            consecutiveFailures.set(0);
+            openUntil.set(0);
+            probing.set(false);
+        } else if (openUntil.get() == 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    /**
+     * 허가받은 요청의 실패. 시험 요청이 실패하면 다시 열고, 시험 허가는 시험 요청 자신의 결과로만 돌려준다.
+     */
+    public void onFailure(Permit permit) {
+        int failures = consecutiveFailures.incrementAndGet();
+        if (permit == Permit.PROBE) {
+            openUntil.set(System.currentTimeMillis() + openMillis);
+            probing.set(false);
+        } else if (failures >= failureThreshold) {
+            // 이미 열려 있으면 열림 시각을 늘리지 않는다
+            openUntil.compareAndSet(0, System.currentTimeMillis() + openMillis);
+        }
+    }
+
+    public enum Permit {
+        ALLOWED,
+        PROBE,
+        DENIED
+    }
+}
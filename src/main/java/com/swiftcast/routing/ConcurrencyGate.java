@@ -0,0 +1,130 @@
+package com.swiftcast.routing;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 계정별 최대 동시 요청 수를 제한하는 lock-free 비동기 세마포어.
+ * <p>
+ * 허가가 없으면 스레드를 막지 않고 FIFO 대기열에 넣었다가, 반납되는 허가를 대기 중인 티켓에 직접 넘겨준다.
+ * 대기열 등록과 반납이 엇갈려도 양쪽이 모두 drain 을 호출하므로 깨우기를 놓치지 않는다.
+ */
+final class ConcurrencyGate {
+
+    private final int limit;
+    private final AtomicInteger available;
+    private final ConcurrentLinkedQueue<Ticket> waiters = new ConcurrentLinkedQueue<>();
+
+    ConcurrencyGate(int limit) {
+        this.limit = limit;
+        this.available = new AtomicInteger(Math.max(0, limit));
+    }
+
+    Ticket newTicket() {
+        return new Ticket();
+    }
+
+    int getInFlight() {
+        return limit > 0 ? limit - available.get() : 0;
+    }
+
+    int getQueued() {
+        return waiters.size();
+    }
+
+    private boolean tryAcquire() {
+        for (;;) {
+            int current = available.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (available.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void returnPermit() {
+        if (limit > 0) {
+            available.incrementAndGet();
+            drain();
+        }
+    }
+
+    private void drain() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            Ticket next = waiters.poll();
+            if (next == null || !next.grant()) {
+                available.incrementAndGet();
+                if (next == null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 요청 하나의 허가. release 는 여러 번 호출해도 한 번만 반납한다.
+     */
+    final class Ticket {
+
+        private static final int NEW = 0;
+        private static final int WAITING = 1;
+        private static final int HELD = 2;
+        private static final int DONE = 3;
+
+        private final AtomicInteger state = new AtomicInteger(NEW);
+        private MonoSink<Void> sink;
+
+        Mono<Void> acquire(long timeoutNanos, Supplier<? extends RuntimeException> onTimeout) {
+            return Mono.create(sink -> {
+                // 대기 중인 요청이 있으면 새 요청이 끼어들지 않는다
+                if (limit <= 0 || (waiters.isEmpty() && tryAcquire())) {
+                    if (state.compareAndSet(NEW, HELD)) {
+                        sink.success();
+                    } else if (limit > 0) {
+                        returnPermit();
+                    }
+                    return;
+                }
+                this.sink = sink;
+                if (!state.compareAndSet(NEW, WAITING)) {
+                    return;
+                }
+                waiters.offer(this);
+                Disposable timer = Schedulers.parallel().schedule(() -> {
+                    if (state.compareAndSet(WAITING, DONE)) {
+                        waiters.remove(this);
+                        sink.error(onTimeout.get());
+                    }
+                }, Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS);
+                sink.onDispose(timer);
+                drain();
+            });
+        }
+
+        void release() {
+            int previous = state.getAndSet(DONE);
+            if (previous == HELD) {
+                returnPermit();
+            } else if (previous == WAITING) {
+                waiters.remove(this);
+            }
+        }
+
+        private boolean grant() {
+            if (state.compareAndSet(WAITING, HELD)) {
+                sink.success();
+                return true;
+            }
+            return false;
+        }
+    }
+}
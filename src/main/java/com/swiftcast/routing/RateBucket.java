@@ -0,0 +1,100 @@
+package com.swiftcast.routing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 분당 한도(RPM/TPM)를 GCRA 로 관리하는 lock-free 토큰 버킷.
+ * <p>
+ * 상태는 이론적 도착 시각(TAT) 하나뿐이며 CAS 로만 갱신한다. 제공자 버킷처럼 최대 1분치 한도까지 몰아서 보낼 수 있고,
+ * 그 이후에는 한도에 맞는 간격으로 예약된 시각을 돌려준다 (호출자는 그만큼 기다렸다가 보낸다).
+ */
+public class RateBucket {
+
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    // 설정값 (0 이면 없음), 응답 헤더에서 배운 값 (0 이면 아직 모름)
+    private final long configured;
+    private volatile long learned;
+    private volatile long limit;
+
+    private final AtomicLong tat = new AtomicLong(System.nanoTime());
+
+    public RateBucket(long configured) {
+        this.configured = Math.max(0, configured);
+        this.limit = this.configured;
+    }
+
+    /**
+     * cost 만큼 예약하고 기다려야 하는 시간(ns)을 반환한다. maxWait 를 넘으면 예약하지 않고 -1.
+     */
+    public long reserve(long cost, long now, long maxWait) {
+        long perMinute = limit;
+        if (perMinute <= 0 || cost <= 0) {
+            return 0;
+        }
+        // 한 번에 1분치보다 큰 요청은 1분치로 취급해야 영원히 막히지 않는다
+        long increment = Math.min(cost, perMinute) * (WINDOW_NANOS / perMinute);
+        for (;;) {
+            long current = tat.get();
+            long next = Math.max(now, current) + increment;
+            long wait = next - WINDOW_NANOS - now;
+            if (wait > maxWait) {
+                return -1;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return Math.max(0, wait);
+            }
+        }
+    }
+
+    /**
+     * 예약하지 않고 cost 만큼 보내려면 지금부터 기다려야 하는 시간(ns)
+     */
+    public long waitNanos(long cost, long now) {
+        long perMinute = limit;
+        if (perMinute <= 0 || cost <= 0) {
+            return 0;
+        }
+        long increment = Math.min(cost, perMinute) * (WINDOW_NANOS / perMinute);
+        return Math.max(0, Math.max(now, tat.get()) + increment - WINDOW_NANOS - now);
+    }
+
+    /**
+     * 예약량 보정 (추정 토큰 수와 실제 사용량의 차이, 취소된 예약 반환 등). 음수면 돌려받는다.
+     */
+    public void adjust(long delta) {
+        long perMinute = limit;
+        if (perMinute > 0 && delta != 0) {
+            tat.addAndGet(delta * (WINDOW_NANOS / perMinute));
+        }
+    }
+
+    /**
+     * 제공자가 알려준 한도를 반영한다. 설정값이 있으면 둘 중 작은 값을 쓴다.
+     */
+    public void learnLimit(long providerLimit) {
+        if (providerLimit <= 0 || providerLimit == learned) {
+            return;
+        }
+        learned = providerLimit;
+        limit = configured > 0 ? Math.min(configured, providerLimit) : providerLimit;
+    }
+
+    /**
+     * 제공자 쪽 남은 양에 맞춘다. 같은 키를 쓰는 다른 클라이언트가 있으면 로컬 계산보다 적게 남아 있을 수 있다.
+     */
+    public void syncRemaining(long remaining, long now) {
+        long perMinute = limit;
+        if (perMinute <= 0 || remaining < 0) {
+            return;
+        }
+        long used = Math.max(0, perMinute - remaining);
+        long target = now + used * (WINDOW_NANOS / perMinute);
+        tat.accumulateAndGet(target, Math::max);
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+}
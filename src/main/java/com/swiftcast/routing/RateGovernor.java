@@ -0,0 +1,284 @@
+package com.swiftcast.routing;
+
+import com.swiftcast.config.SwiftCastProperties;
+import com.swiftcast.model.Account;
+import com.swiftcast.model.AccountSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 계정별 클라이언트 측 속도 제한.
+ * <p>
+ * 분당 요청 수(RPM)/토큰 수(TPM) 버킷과 최대 동시 요청 수를 적용한다. 한도를 넘은 요청은 실패시키지 않고
+ * maxQueueWait 안에서 차례가 올 때까지 기다린다. 한도는 계정 설정값 또는 업스트림의
+ * anthropic-ratelimit-* 응답 헤더에서 배우며, 429 의 retry-after 동안은 새 요청을 보내지 않는다.
+ */
+@Component
+@Slf4j
+public class RateGovernor {
+
+    private static final String REQUESTS_PREFIX = "anthropic-ratelimit-requests-";
+    private static final String TOKENS_PREFIX = "anthropic-ratelimit-tokens-";
+
+    private final SwiftCastProperties.RateLimit config;
+    private final ConcurrentMap<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    public RateGovernor(SwiftCastProperties properties) {
+        this.config = properties.getRateLimit();
+    }
+
+    /**
+     * 요청 하나의 허가를 만든다. 실제 대기는 {@link Lease#acquire()} 를 구독할 때 시작된다.
+     *
+     * @param estimatedTokens 요청 본문으로 추정한 토큰 수 (응답 후 실제 사용량으로 보정)
+     */
+    public Lease lease(Account account, long estimatedTokens) {
+        if (!config.isEnabled()) {
+            return Lease.NONE;
+        }
+        return new Lease(account.getName(), limiterFor(account), Math.max(0, estimatedTokens),
+                config.getMaxQueueWait().toNanos());
+    }
+
+    /**
+     * 업스트림 응답 헤더에서 한도/남은 양/초기화 시각을 배운다.
+     */
+    public void observe(Account account, int status, HttpHeaders headers) {
+        if (!config.isEnabled() || !config.isLearnFromHeaders()) {
+            return;
+        }
+        Limiter limiter = limiterFor(account);
+        long now = System.nanoTime();
+        learn(limiter.requests, limiter, headers, REQUESTS_PREFIX, now);
+        learn(limiter.tokens, limiter, headers, TOKENS_PREFIX, now);
+
+        if (status == 429) {
+            Duration retryAfter = parseRetryAfter(headers.getFirst(HttpHeaders.RETRY_AFTER));
+            if (retryAfter != null) {
+                limiter.blockUntil(now + retryAfter.toNanos());
+                log.warn("Upstream {} rate limited, holding requests for {}s", account.getName(), retryAfter.toSeconds());
+            }
+        }
+    }
+
+    @EventListener
+    public void onAccountsChanged(AccountSnapshot snapshot) {
+        limiters.keySet().retainAll(snapshot.byId().keySet());
+    }
+
+    private Limiter limiterFor(Account account) {
+        Limiter cached = limiters.get(account.getId());
+        if (cached != null && cached.matches(account)) {
+            return cached;
+        }
+        // 한도 설정이 바뀌면 새로 만든다 (진행 중인 요청은 이전 게이트에 반납)
+        return limiters.compute(account.getId(), (id, existing) ->
+                existing != null && existing.matches(account) ? existing : new Limiter(account));
+    }
+
+    private static void learn(RateBucket bucket, Limiter limiter, HttpHeaders headers, String prefix, long now) {
+        long limit = parseLong(headers.getFirst(prefix + "limit"));
+        if (limit > 0) {
+            bucket.learnLimit(limit);
+        }
+        long remaining = parseLong(headers.getFirst(prefix + "remaining"));
+        if (remaining > 0) {
+            bucket.syncRemaining(remaining, now);
+        } else if (remaining == 0) {
+            // 다 쓴 경우 초기화 시각까지 보내지 않는다
+            Instant reset = parseInstant(headers.getFirst(prefix + "reset"));
+            if (reset != null) {
+                long delay = Duration.between(Instant.now(), reset).toNanos();
+                if (delay > 0) {
+                    limiter.blockUntil(now + delay);
+                }
+            }
+        }
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // 초 단위만 지원 (HTTP-date 형식은 무시)
+    private static Duration parseRetryAfter(String value) {
+        long seconds = parseLong(value);
+        return seconds > 0 ? Duration.ofSeconds(seconds) : null;
+    }
+
+    private static int limitOf(Integer value) {
+        return value != null && value > 0 ? value : 0;
+    }
+
+    /**
+     * 요청 하나가 차지한 한도. 응답 본문 전송이 끝나면 complete, 그 밖의 모든 종료 경로(실패, 취소, 버린 응답)에서는
+     * release 한다 (여러 번 호출해도 안전).
+     */
+    public static final class Lease {
+
+        static final Lease NONE = new Lease(null, null, 0, 0);
+
+        private final String accountName;
+        private final Limiter limiter;
+        private final long estimatedTokens;
+        private final long maxWaitNanos;
+        private final ConcurrencyGate.Ticket ticket;
+        // 허가를 받았거나 예약을 돌려준 뒤에는 true
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private Lease(String accountName, Limiter limiter, long estimatedTokens, long maxWaitNanos) {
+            this.accountName = accountName;
+            this.limiter = limiter;
+            this.estimatedTokens = estimatedTokens;
+            this.maxWaitNanos = maxWaitNanos;
+            this.ticket = limiter != null ? limiter.gate.newTicket() : null;
+        }
+
+        /**
+         * RPM/TPM 예약 시각까지 기다린 뒤 동시성 허가를 받는다. 기한 안에 안 되면 RateLimitedException.
+         */
+        public Mono<Void> acquire() {
+            if (limiter == null) {
+                return Mono.empty();
+            }
+            return Mono.defer(() -> {
+                long start = System.nanoTime();
+                long wait = limiter.reserve(estimatedTokens, start, maxWaitNanos);
+                if (wait < 0) {
+                    return Mono.error(rejected(limiter.retryAfter(estimatedTokens, start, 0)));
+                }
+                Mono<Void> paced = wait == 0 ? Mono.empty()
+                        : Mono.delay(Duration.ofNanos(wait)).then();
+                return paced.then(Mono.defer(() -> {
+                            long queued = System.nanoTime();
+                            // 대기하는 동안 자리가 나지 않았으므로 그만큼은 다시 기다려야 한다고 본다
+                            return ticket.acquire(maxWaitNanos - (queued - start), () -> {
+                                long now = System.nanoTime();
+                                return rejected(limiter.retryAfter(0, now, now - queued));
+                            });
+                        }))
+                        .doOnSuccess(granted -> settled.set(true))
+                        // 보내기 전에 거절/취소되면 예약한 RPM/TPM 을 돌려준다
+                        .doOnError(error -> unreserve())
+                        .doOnCancel(this::unreserve);
+            }).doOnCancel(this::release);
+        }
+
+        /**
+         * 실제 사용 토큰 수로 TPM 예약을 보정하고 동시성 허가를 반납한다.
+         */
+        public void complete(long actualTokens) {
+            if (limiter != null && actualTokens > 0) {
+                limiter.tokens.adjust(actualTokens - Math.min(estimatedTokens, limiter.tokens.getLimit()));
+            }
+            release();
+        }
+
+        public void release() {
+            if (ticket != null) {
+                ticket.release();
+            }
+        }
+
+        private void unreserve() {
+            if (settled.compareAndSet(false, true)) {
+                limiter.requests.adjust(-1);
+                limiter.tokens.adjust(-Math.min(estimatedTokens, limiter.tokens.getLimit()));
+            }
+        }
+
+        private RateLimitedException rejected(Duration retryAfter) {
+            return new RateLimitedException(accountName, retryAfter);
+        }
+    }
+
+    private static final class Limiter {
+
+        final Integer rpmLimit;
+        final Integer tpmLimit;
+        final Integer maxConcurrency;
+
+        final RateBucket requests;
+        final RateBucket tokens;
+        final ConcurrencyGate gate;
+        // retry-after / 한도 소진 시 이 시각(nanoTime)까지 보내지 않는다
+        final AtomicLong blockedUntil = new AtomicLong(System.nanoTime());
+
+        Limiter(Account account) {
+            this.rpmLimit = account.getRpmLimit();
+            this.tpmLimit = account.getTpmLimit();
+            this.maxConcurrency = account.getMaxConcurrency();
+            this.requests = new RateBucket(limitOf(rpmLimit));
+            this.tokens = new RateBucket(limitOf(tpmLimit));
+            this.gate = new ConcurrencyGate(limitOf(maxConcurrency));
+        }
+
+        boolean matches(Account account) {
+            return Objects.equals(rpmLimit, account.getRpmLimit())
+                    && Objects.equals(tpmLimit, account.getTpmLimit())
+                    && Objects.equals(maxConcurrency, account.getMaxConcurrency());
+        }
+
+        long reserve(long estimatedTokens, long now, long maxWait) {
+            long blocked = Math.max(0, blockedUntil.get() - now);
+            if (blocked > maxWait) {
+                return -1;
+            }
+            long requestWait = requests.reserve(1, now, maxWait);
+            if (requestWait < 0) {
+                return -1;
+            }
+            long tokenWait = tokens.reserve(estimatedTokens, now, maxWait);
+            if (tokenWait < 0) {
+                requests.adjust(-1);
+                return -1;
+            }
+            return Math.max(blocked, Math.max(requestWait, tokenWait));
+        }
+
+        void blockUntil(long nanos) {
+            blockedUntil.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * 거절한 버킷/차단 시각 기준으로 다시 보내도 기다리지 않게 되는 시간 (초 단위 올림, 최소 1초)
+         */
+        Duration retryAfter(long estimatedTokens, long now, long minWait) {
+            long wait = Math.max(minWait, Math.max(blockedUntil.get() - now,
+                    Math.max(requests.waitNanos(1, now), tokens.waitNanos(estimatedTokens, now))));
+            long seconds = TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1);
+            return Duration.ofSeconds(Math.max(1, seconds));
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.swiftcast.routing;
+
+import java.time.Duration;
+
+/**
+ * 계정의 요청/토큰/동시성 한도 때문에 대기 기한 안에 보낼 수 없는 요청
+ */
+public class RateLimitedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public RateLimitedException(String accountName, Duration retryAfter) {
+        super("Rate limit queue timeout for account " + accountName);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
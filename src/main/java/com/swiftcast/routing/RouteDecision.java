@@ -0,0 +1,14 @@
+package com.swiftcast.routing;
+
+import com.swiftcast.model.Account;
+import com.swiftcast.model.Provider;
+
+/**
+ * 라우팅 규칙 적용 결과. account 가 null 이면 기본 전략을 따르고,
+ * rewriteModel 이 null 이 아니면 요청 본문의 model 을 바꿔서 보낸다.
+ * 재작성은 rewriteProvider 계정으로 보낼 때만 적용한다 (null 이면 모든 계정, 다른 제공자로 장애 조치하면 원래 모델).
+ */
+public record RouteDecision(String ruleName, Account account, String rewriteModel, Provider rewriteProvider) {
+
+    public static final RouteDecision DEFAULT = new RouteDecision(null, null, null, null);
+}
@@ -0,0 +1,152 @@
+package com.swiftcast.routing;
+
+import com.swiftcast.config.SwiftCastProperties;
+import com.swiftcast.model.Account;
+import com.swiftcast.model.AccountSnapshot;
+import com.swiftcast.model.Provider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 요청 내용(모델, 경로, 헤더, 프롬프트 크기) 기반 라우팅 규칙 엔진.
+ * 설정된 규칙은 시작 시 한 번 컴파일되고, 대상 계정은 스냅샷 버전별로 한 번만 해석한다.
+ */
+@Component
+@Slf4j
+public class RoutingRules {
+
+    private final CompiledRule[] rules;
+    private final AtomicReference<ResolvedAccounts> resolved = new AtomicReference<>(ResolvedAccounts.EMPTY);
+
+    public RoutingRules(SwiftCastProperties properties) {
+        List<SwiftCastProperties.Rule> configured = properties.getRouting().getRules();
+        this.rules = new CompiledRule[configured.size()];
+        for (int i = 0; i < configured.size(); i++) {
+            rules[i] = CompiledRule.compile(configured.get(i), i);
+        }
+        if (rules.length > 0) {
+            log.info("Loaded {} routing rules", rules.length);
+        }
+    }
+
+    public boolean isEmpty() {
+        return rules.length == 0;
+    }
+
+    public RouteDecision decide(AccountSnapshot snapshot, String path, HttpHeaders headers, String model, long bodyBytes) {
+        if (rules.length == 0) {
+            return RouteDecision.DEFAULT;
+        }
+        long promptTokens = bodyBytes / 4;
+        for (CompiledRule rule : rules) {
+            if (rule.matches(path, headers, model, promptTokens)) {
+                Account account = rule.accountRef != null ? resolve(snapshot)[rule.index] : null;
+                if (rule.accountRef != null && account == null) {
+                    log.warn("Routing rule '{}' targets unknown account '{}'", rule.name, rule.accountRef);
+                    continue;
+                }
+                // 대상 계정이 있으면 재작성한 모델은 그 계정의 제공자 모델이다
+                Provider rewriteProvider = account != null && rule.rewriteModel != null
+                        ? Provider.detect(account.getBaseUrl()) : null;
+                return new RouteDecision(rule.name, account, rule.rewriteModel, rewriteProvider);
+            }
+        }
+        return RouteDecision.DEFAULT;
+    }
+
+    private Account[] resolve(AccountSnapshot snapshot) {
+        ResolvedAccounts current = resolved.get();
+        if (current.version == snapshot.version()) {
+            return current.accounts;
+        }
+        Account[] accounts = new Account[rules.length];
+        for (CompiledRule rule : rules) {
+            if (rule.accountRef == null) {
+                continue;
+            }
+            // 자리표시 계정은 보낼 곳이 없으므로 규칙 대상이 될 수 없다
+            accounts[rule.index] = snapshot.findById(rule.accountRef)
+                    .or(() -> snapshot.accounts().stream()
+                            .filter(account -> rule.accountRef.equals(account.getName()))
+                            .findFirst())
+                    .filter(account -> !Boolean.TRUE.equals(account.getPlaceholder()))
+                    .orElse(null);
+        }
+        resolved.compareAndSet(current, new ResolvedAccounts(snapshot.version(), accounts));
+        return accounts;
+    }
+
+    private record ResolvedAccounts(long version, Account[] accounts) {
+        static final ResolvedAccounts EMPTY = new ResolvedAccounts(-1, new Account[0]);
+    }
+
+    private static final class CompiledRule {
+        final int index;
+        final String name;
+        final String modelExact;
+        final String modelPrefix;
+        final String pathPrefix;
+        final String headerName;
+        final String headerValue;
+        final long minPromptTokens;
+        final long maxPromptTokens;
+        final String accountRef;
+        final String rewriteModel;
+
+        private CompiledRule(int index, SwiftCastProperties.Rule rule) {
+            this.index = index;
+            this.name = rule.getName() != null ? rule.getName() : "rule-" + index;
+
+            String model = blankToNull(rule.getModel());
+            boolean prefix = model != null && model.endsWith("*");
+            this.modelExact = prefix ? null : model;
+            this.modelPrefix = prefix ? model.substring(0, model.length() - 1) : null;
+
+            this.pathPrefix = blankToNull(rule.getPathPrefix());
+
+            String header = blankToNull(rule.getHeader());
+            int eq = header != null ? header.indexOf('=') : -1;
+            this.headerName = eq >= 0 ? header.substring(0, eq).trim() : header;
+            this.headerValue = eq >= 0 ? header.substring(eq + 1).trim() : null;
+
+            this.minPromptTokens = rule.getMinPromptTokens() != null ? rule.getMinPromptTokens() : Long.MIN_VALUE;
+            this.maxPromptTokens = rule.getMaxPromptTokens() != null ? rule.getMaxPromptTokens() : Long.MAX_VALUE;
+            this.accountRef = blankToNull(rule.getAccount());
+            this.rewriteModel = blankToNull(rule.getRewriteModel());
+        }
+
+        static CompiledRule compile(SwiftCastProperties.Rule rule, int index) {
+            return new CompiledRule(index, rule);
+        }
+
+        boolean matches(String path, HttpHeaders headers, String model, long promptTokens) {
+            if (promptTokens < minPromptTokens || promptTokens > maxPromptTokens) {
+                return false;
+            }
+            if (pathPrefix != null && !path.startsWith(pathPrefix)) {
+                return false;
+            }
+            if (modelExact != null && !modelExact.equals(model)) {
+                return false;
+            }
+            if (modelPrefix != null && (model == null || !model.startsWith(modelPrefix))) {
+                return false;
+            }
+            if (headerName != null) {
+                String value = headers.getFirst(headerName);
+                if (value == null || (headerValue != null && !headerValue.equals(value))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+}
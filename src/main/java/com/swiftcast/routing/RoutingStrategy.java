@@ -0,0 +1,10 @@
+package com.swiftcast.routing;
+
+public enum RoutingStrategy {
+    // 활성 계정만 사용하고, 실패 시 풀의 다른 계정으로 전환
+    ACTIVE_ONLY,
+    // 풀 계정 간 가중치 라운드 로빈
+    WEIGHTED_ROUND_ROBIN,
+    // 처리 중인 요청이 가장 적은 계정 우선
+    LEAST_OUTSTANDING
+}
@@ -0,0 +1,255 @@
+package com.swiftcast.routing;
+
+import com.swiftcast.config.SwiftCastProperties;
+import com.swiftcast.model.Account;
+import com.swiftcast.model.AccountSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 계정 풀 라우터.
+ * <p>
+ * 요청마다 시도할 계정 순서(첫 번째가 주 계정, 나머지는 장애 조치 후보)를 정한다.
+ * 풀 구성은 계정 스냅샷 버전별로 한 번만 계산하며, 요청 경로에서는 원자 변수만 사용한다.
+ */
+@Component
+@Slf4j
+public class UpstreamRouter {
+
+    private final SwiftCastProperties.Routing config;
+    private final Set<Integer> failoverStatuses;
+
+    private final ConcurrentMap<String, AccountState> states = new ConcurrentHashMap<>();
+    private final AtomicReference<Pool> pool = new AtomicReference<>(Pool.EMPTY);
+    private final AtomicLong roundRobin = new AtomicLong();
+
+    public UpstreamRouter(SwiftCastProperties properties) {
+        this.config = properties.getRouting();
+        this.failoverStatuses = Set.copyOf(config.getFailoverStatuses());
+    }
+
+    /**
+     * 시도할 계정 순서. 비어 있으면 사용할 수 있는 계정이 없다.
+     */
+    public List<Account> candidates(AccountSnapshot snapshot) {
+        return candidates(snapshot, null);
+    }
+
+    /**
+     * preferred 가 지정되면 (라우팅 규칙) 그 계정을 먼저 시도하고, 풀의 나머지 계정을 장애 조치 후보로 둔다.
+     */
+    public List<Account> candidates(AccountSnapshot snapshot, Account preferred) {
+        Pool current = poolFor(snapshot);
+        if (preferred != null) {
+            List<Account> ordered = new ArrayList<>(current.members.length + 1);
+            ordered.add(preferred);
+            for (Account member : current.members) {
+                if (!member.getId().equals(preferred.getId())) {
+                    ordered.add(member);
+                }
+            }
+            return ordered;
+        }
+        if (current.members.length == 0) {
+            return List.of();
+        }
+
+        int primary = switch (config.getStrategy()) {
+            case ACTIVE_ONLY -> current.activeIndex >= 0 ? current.activeIndex : 0;
+            case WEIGHTED_ROUND_ROBIN -> current.pickWeighted(roundRobin.getAndIncrement());
+            case LEAST_OUTSTANDING -> pickLeastOutstanding(current);
+        };
+
+        List<Account> ordered = new ArrayList<>(current.members.length);
+        ordered.add(current.members[primary]);
+        for (int i = 1; i < current.members.length; i++) {
+            ordered.add(current.members[(primary + i) % current.members.length]);
+        }
+        return ordered;
+    }
+
+    /**
+     * 요청 시작. 서킷이 열려 있으면 null (카운트하지 않음).
+     * force 가 true 이면 서킷 상태와 상관없이 시작한다 (모든 후보가 차단된 경우).
+     */
+    public Attempt tryStart(Account account, boolean force) {
+        AccountState state = stateOf(account);
+        CircuitBreaker.Permit permit = force ? CircuitBreaker.Permit.ALLOWED : state.breaker.tryAcquire();
+        if (permit == CircuitBreaker.Permit.DENIED) {
+            return null;
+        }
+        state.outstanding.incrementAndGet();
+        return new Attempt(state, permit);
+    }
+
+    public int getOutstanding(Account account) {
+        return stateOf(account).outstanding.get();
+    }
+
+    public boolean isCircuitOpen(Account account) {
+        return stateOf(account).breaker.isOpen();
+    }
+
+    @EventListener
+    public void onAccountsChanged(AccountSnapshot snapshot) {
+        states.keySet().retainAll(snapshot.byId().keySet());
+    }
+
+    private int pickLeastOutstanding(Pool current) {
+        // 동률이면 라운드 로빈 시작점부터 탐색하여 한 계정으로 몰리지 않게 한다
+        int start = (int) Math.floorMod(roundRobin.getAndIncrement(), (long) current.members.length);
+        int best = start;
+        double bestLoad = Double.MAX_VALUE;
+        for (int i = 0; i < current.members.length; i++) {
+            int index = (start + i) % current.members.length;
+            Account account = current.members[index];
+            AccountState state = stateOf(account);
+            if (state.breaker.isOpen()) {
+                continue;
+            }
+            double load = (double) state.outstanding.get() / weightOf(account);
+            if (load < bestLoad) {
+                bestLoad = load;
+                best = index;
+            }
+        }
+        return best;
+    }
+
+    private Pool poolFor(AccountSnapshot snapshot) {
+        Pool current = pool.get();
+        if (current.version == snapshot.version()) {
+            return current;
+        }
+        Pool next = Pool.of(snapshot);
+        pool.compareAndSet(current, next);
+        log.debug("Routing pool rebuilt: {} accounts (strategy: {})", next.members.length, config.getStrategy());
+        return next;
+    }
+
+    private AccountState stateOf(Account account) {
+        return states.computeIfAbsent(account.getId(), id ->
+                new AccountState(new CircuitBreaker(config.getFailureThreshold(), config.getOpenDuration().toMillis())));
+    }
+
+    private static int weightOf(Account account) {
+        return account.getWeight() != null && account.getWeight() > 0 ? account.getWeight() : 1;
+    }
+
+    /**
+     * 계정 하나로 보낸 요청 시도. 응답 상태/오류를 서킷에 반영하고, 응답 전송이 끝나거나 취소되면 finish 한다.
+     * finish 는 여러 번 호출해도 한 번만 반영하며, 결과 없이 끝난 half-open 시험 요청은 시험 허가를 돌려준다.
+     */
+    public final class Attempt {
+
+        private final AccountState state;
+        private final CircuitBreaker.Permit permit;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile boolean recorded;
+
+        private Attempt(AccountState state, CircuitBreaker.Permit permit) {
+            this.state = state;
+            this.permit = permit;
+        }
+
+        /**
+         * 업스트림 응답 상태를 서킷에 반영하고, 다른 계정으로 넘겨야 하는 상태인지 반환한다.
+         */
+        public boolean recordStatus(int status) {
+            recorded = true;
+            boolean failover = failoverStatuses.contains(status);
+            if (failover) {
+                state.breaker.onFailure(permit);
+            } else {
+                state.breaker.onSuccess(permit);
+            }
+            return failover;
+        }
+
+        public void recordError() {
+            recorded = true;
+            state.breaker.onFailure(permit);
+        }
+
+        public void finish() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            state.outstanding.decrementAndGet();
+            if (permit == CircuitBreaker.Permit.PROBE && !recorded) {
+                state.breaker.abortProbe();
+            }
+        }
+    }
+
+    private record AccountState(CircuitBreaker breaker, AtomicInteger outstanding) {
+        AccountState(CircuitBreaker breaker) {
+            this(breaker, new AtomicInteger());
+        }
+    }
+
+    // 스냅샷 버전별로 미리 계산한 풀 구성 (활성 계정 + 풀에 포함된 계정)
+    private static final class Pool {
+
+        static final Pool EMPTY = new Pool(-1, new Account[0], new int[0], -1);
+
+        final long version;
+        final Account[] members;
+        final int[] cumulativeWeights;
+        final int activeIndex;
+
+        private Pool(long version, Account[] members, int[] cumulativeWeights, int activeIndex) {
+            this.version = version;
+            this.members = members;
+            this.cumulativeWeights = cumulativeWeights;
+            this.activeIndex = activeIndex;
+        }
+
+        static Pool of(AccountSnapshot snapshot) {
+            List<Account> members = new ArrayList<>();
+            int activeIndex = -1;
+            for (Account account : snapshot.accounts()) {
+                if (Boolean.TRUE.equals(account.getPlaceholder())) {
+                    continue;
+                }
+                boolean active = Boolean.TRUE.equals(account.getIsActive());
+                if (active || Boolean.TRUE.equals(account.getPoolEnabled())) {
+                    if (active) {
+                        activeIndex = members.size();
+                    }
+                    members.add(account);
+                }
+            }
+
+            int[] cumulative = new int[members.size()];
+            int total = 0;
+            for (int i = 0; i < members.size(); i++) {
+                total += weightOf(members.get(i));
+                cumulative[i] = total;
+            }
+            return new Pool(snapshot.version(), members.toArray(new Account[0]), cumulative, activeIndex);
+        }
+
+        int pickWeighted(long ticket) {
+            int total = cumulativeWeights[cumulativeWeights.length - 1];
+            int point = (int) Math.floorMod(ticket, (long) total);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (point < cumulativeWeights[i]) {
+                    return i;
+                }
+            }
+            return 0;
+        }
+    }
+}
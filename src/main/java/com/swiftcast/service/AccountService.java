@@ -1,14 +1,24 @@
 package com.swiftcast.service;
 
 import com.swiftcast.model.Account;
+import com.swiftcast.model.AccountSnapshot;
 import com.swiftcast.repository.AccountRepository;
+import com.swiftcast.startup.StartupTimeline;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @RequiredArgsConstructor
@@ -16,6 +26,47 @@ import java.util.Optional;
 public class AccountService {
 
     private final AccountRepository accountRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AccountSnapshotStore snapshotStore;
+    private final ExecutorService blockingExecutor;
+
+    // 프록시 핫패스용 스냅샷 (DB 조회/락 없이 읽기)
+    private final AtomicReference<AccountSnapshot> snapshot = new AtomicReference<>(AccountSnapshot.EMPTY);
+    // 파일에서 읽은 스냅샷 버전 (DB 에서 다시 읽기 전까지, 없으면 -1)
+    private volatile long fileSnapshotVersion = -1;
+
+    @PostConstruct
+    void loadSnapshot() {
+        // 파일 스냅샷이 있으면 JPA 초기화를 기다리지 않고 바로 공개하고, DB 는 시작 완료 후 다시 읽는다
+        Optional<List<Account>> cached = snapshotStore.load();
+        if (cached.isPresent()) {
+            fileSnapshotVersion = publishSnapshot(cached.get(), false).version();
+            StartupTimeline.mark("accounts.snapshot-file");
+            return;
+        }
+        publishSnapshot(accountRepository.findAll(), true);
+        StartupTimeline.mark("accounts.database");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshFromDatabase() {
+        if (fileSnapshotVersion < 0) {
+            return;
+        }
+        blockingExecutor.execute(() -> {
+            try {
+                List<Account> accounts = accountRepository.findAll();
+                // 그 사이 계정 변경으로 DB 기준 스냅샷이 이미 공개됐다면 덮어쓰지 않는다
+                if (snapshot.get().version() == fileSnapshotVersion) {
+                    publishSnapshot(accounts, true);
+                }
+                fileSnapshotVersion = -1;
+                StartupTimeline.mark("accounts.database");
+            } catch (Exception e) {
+                log.error("Failed to refresh accounts from database", e);
+            }
+        });
+    }
 
     @Transactional
     public Account createAccount(String name, String baseUrl, String apiKey) {
@@ -29,6 +80,20 @@ public class AccountService {
 
         Account saved = accountRepository.save(account);
         log.info("Account created: {}", saved.getName());
+        publishSnapshotAfterCommit();
+        return saved;
+    }
+
+    /**
+     * 가져온 사용량 기록에만 쓰이는 자리표시 계정. Base URL/API 키가 없고 활성화/풀/라우팅 규칙 대상에서 빠진다.
+     */
+    @Transactional
+    public Account createPlaceholderAccount(String name) {
+        Account placeholder = new Account(name, "", "");
+        placeholder.setPlaceholder(true);
+        Account saved = accountRepository.save(placeholder);
+        log.info("Placeholder account created for imported usage: {}", saved.getName());
+        publishSnapshotAfterCommit();
         return saved;
     }
 
@@ -37,27 +102,92 @@ public class AccountService {
     }
 
     public Optional<Account> getActiveAccount() {
-        return accountRepository.findByIsActive(true);
+        return snapshot.get().activeAccount();
+    }
+
+    public AccountSnapshot getSnapshot() {
+        return snapshot.get();
     }
 
     @Transactional
     public void switchAccount(String accountId) {
+        // 자리표시 계정은 보낼 곳이 없으므로 활성화할 수 없다
+        Optional<Account> target = accountRepository.findById(accountId);
+        if (target.isPresent() && Boolean.TRUE.equals(target.get().getPlaceholder())) {
+            throw new IllegalArgumentException("Placeholder account cannot be activated: " + target.get().getName());
+        }
+
         // 모든 계정 비활성화
         List<Account> allAccounts = accountRepository.findAll();
         allAccounts.forEach(acc -> acc.setIsActive(false));
         accountRepository.saveAll(allAccounts);
 
         // 선택한 계정만 활성화
-        accountRepository.findById(accountId).ifPresent(account -> {
+        target.ifPresent(account -> {
             account.setIsActive(true);
             accountRepository.save(account);
             log.info("Switched to account: {}", account.getName());
         });
+        publishSnapshotAfterCommit();
+    }
+
+    @Transactional
+    public void updateRouting(String accountId, boolean poolEnabled, int weight) {
+        accountRepository.findById(accountId).ifPresent(account -> {
+            // 자리표시 계정은 풀에 넣지 않는다
+            account.setPoolEnabled(poolEnabled && !Boolean.TRUE.equals(account.getPlaceholder()));
+            account.setWeight(Math.max(1, weight));
+            accountRepository.save(account);
+            log.info("Routing updated for {}: pool={}, weight={}", account.getName(), poolEnabled, account.getWeight());
+        });
+        publishSnapshotAfterCommit();
+    }
+
+    @Transactional
+    public void updateLimits(String accountId, int rpmLimit, int tpmLimit, int maxConcurrency) {
+        accountRepository.findById(accountId).ifPresent(account -> {
+            // 0 이면 제한 없음 (업스트림 헤더에서 배운 한도만 적용)
+            account.setRpmLimit(rpmLimit > 0 ? rpmLimit : null);
+            account.setTpmLimit(tpmLimit > 0 ? tpmLimit : null);
+            account.setMaxConcurrency(maxConcurrency > 0 ? maxConcurrency : null);
+            accountRepository.save(account);
+            log.info("Rate limits updated for {}: rpm={}, tpm={}, concurrency={}",
+                    account.getName(), rpmLimit, tpmLimit, maxConcurrency);
+        });
+        publishSnapshotAfterCommit();
     }
 
     @Transactional
     public void deleteAccount(String accountId) {
         accountRepository.deleteById(accountId);
         log.info("Account deleted: {}", accountId);
+        publishSnapshotAfterCommit();
+    }
+
+    private void publishSnapshotAfterCommit() {
+        List<Account> accounts = accountRepository.findAll();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishSnapshot(accounts, true);
+            return;
+        }
+        // 커밋이 성공한 경우에만 새 스냅샷을 공개
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishSnapshot(accounts, true);
+            }
+        });
+    }
+
+    private AccountSnapshot publishSnapshot(List<Account> accounts, boolean persist) {
+        AccountSnapshot next = snapshot.updateAndGet(prev -> AccountSnapshot.of(prev.version() + 1, accounts));
+        log.debug("Account snapshot v{} published ({} accounts, active: {})",
+                next.version(), next.accounts().size(),
+                next.activeAccount().map(Account::getName).orElse("none"));
+        if (persist) {
+            snapshotStore.save(accounts);
+        }
+        eventPublisher.publishEvent(next);
+        return next;
     }
 }
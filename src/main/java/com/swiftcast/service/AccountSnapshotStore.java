@@ -0,0 +1,129 @@
+package com.swiftcast.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.swiftcast.config.SwiftCastProperties;
+import com.swiftcast.model.Account;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 계정 스냅샷 파일 저장소.
+ * <p>
+ * 시작 시 JPA/SQLite 초기화를 기다리지 않고 프록시가 바로 요청을 받을 수 있도록 마지막 계정 목록을 JSON 으로 보관한다.
+ * API 키는 파일에 쓰지 않고, 읽을 때 JPA 없이 JDBC 로 accounts 테이블에서 채운다.
+ * 키를 읽을 수 없으면 스냅샷을 쓰지 않는다 (fail closed, 호출자는 DB 에서 계정을 읽는다).
+ */
+@Component
+@RegisterReflectionForBinding(Account.class)
+@Slf4j
+public class AccountSnapshotStore {
+
+    private static final TypeReference<List<Account>> ACCOUNT_LIST = new TypeReference<>() {
+    };
+    private static final String API_KEY_FIELD = "apiKey";
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final Path file;
+    private final boolean enabled;
+
+    public AccountSnapshotStore(ObjectMapper objectMapper, JdbcTemplate jdbcTemplate, SwiftCastProperties properties) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.file = Paths.get(properties.getStartup().getSnapshotFile());
+        this.enabled = properties.getStartup().isFastStart();
+    }
+
+    public Optional<List<Account>> load() {
+        if (!enabled || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        List<Account> accounts;
+        try {
+            accounts = objectMapper.readValue(file.toFile(), ACCOUNT_LIST);
+        } catch (IOException e) {
+            // 손상된 스냅샷은 무시하고 DB 에서 다시 읽는다
+            log.warn("Ignoring unreadable account snapshot {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+        // 이전 버전이 키를 포함해 저장한 파일은 키를 지우고 다시 쓴다
+        if (accounts.stream().anyMatch(account -> account.getApiKey() != null)) {
+            save(accounts);
+        }
+
+        Map<String, String> keys;
+        try {
+            keys = loadApiKeys();
+        } catch (DataAccessException e) {
+            log.warn("Ignoring account snapshot, API keys unavailable: {}", e.getMessage());
+            return Optional.empty();
+        }
+        List<Account> resolved = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            String apiKey = keys.get(account.getId());
+            // DB 에서 삭제된 계정은 건너뛴다
+            if (apiKey != null) {
+                account.setApiKey(apiKey);
+                resolved.add(account);
+            }
+        }
+        return Optional.of(resolved);
+    }
+
+    public void save(List<Account> accounts) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ArrayNode tree = objectMapper.valueToTree(accounts);
+            for (JsonNode node : tree) {
+                ((ObjectNode) node).remove(API_KEY_FIELD);
+            }
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, objectMapper.writeValueAsBytes(tree));
+            restrictPermissions(temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write account snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    // EntityManagerFactory 를 기다리지 않도록 JDBC 로 직접 읽는다
+    private Map<String, String> loadApiKeys() {
+        Map<String, String> keys = new HashMap<>();
+        jdbcTemplate.query("SELECT id, api_key FROM accounts", rs -> {
+            keys.put(rs.getString(1), rs.getString(2));
+        });
+        return keys;
+    }
+
+    // 키는 없지만 계정 이름/URL 도 소유자만 읽을 수 있게 한다 (POSIX 권한이 없는 파일 시스템에서는 건너뜀)
+    private static void restrictPermissions(Path path) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | AccessDeniedException e) {
+            log.debug("Cannot restrict permissions of {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.swiftcast.service;
+
+import com.swiftcast.model.UsageEvent;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 사용량 내보내기 바이너리 형식 (gzip 안에 담긴다).
+ * <p>
+ * 행은 timestamp 순이며 timestamp 는 이전 행과의 차이(밀리초, zigzag varint)로, 계정/모델/경로 문자열은
+ * 처음 나올 때 사전에 정의한 뒤 번호(varint)로 기록한다. 사전은 MAX_DICTIONARY 개가 차면 비우므로
+ * 쓰기/읽기 모두 행 수와 상관없이 메모리 사용량이 일정하다. 마지막에 행 수를 기록해 잘린 파일을 알아낸다.
+ * <pre>
+ * "SWU1" version
+ * { STRING len bytes | RESET | ROW flags id(16) Δts account accountName model path status in out cw cr cost } ...
+ * END rowCount
+ * </pre>
+ */
+final class UsageBinaryFormat {
+
+    static final byte[] MAGIC = {'S', 'W', 'U', '1'};
+    private static final int VERSION = 1;
+
+    private static final int TAG_END = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_ROW = 2;
+    private static final int TAG_RESET = 3;
+
+    private static final int MAX_DICTIONARY = 4096;
+    private static final int MAX_STRING_BYTES = 64 * 1024;
+
+    private static final int HAS_ACCOUNT_NAME = 1;
+    private static final int HAS_PATH = 1 << 1;
+    private static final int HAS_STATUS = 1 << 2;
+    private static final int HAS_INPUT = 1 << 3;
+    private static final int HAS_OUTPUT = 1 << 4;
+    private static final int HAS_CACHE_CREATION = 1 << 5;
+    private static final int HAS_CACHE_READ = 1 << 6;
+    private static final int HAS_COST = 1 << 7;
+
+    private UsageBinaryFormat() {
+    }
+
+    static final class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private long lastMillis;
+        private long rows;
+
+        Writer(OutputStream out) throws IOException {
+            this.out = new DataOutputStream(out);
+            this.out.write(MAGIC);
+            this.out.write(VERSION);
+        }
+
+        void write(UsageExportRow row) throws IOException {
+            UsageEvent event = row.event();
+            // 문자열 정의가 행보다 먼저 나와야 하고, 한 행의 정의 도중에는 사전을 비우지 않는다
+            if (dictionary.size() > MAX_DICTIONARY - 4) {
+                reset();
+            }
+            int account = define(event.accountId());
+            int accountName = row.accountName() != null ? define(row.accountName()) : -1;
+            int model = define(event.model());
+            int path = event.requestPath() != null ? define(event.requestPath()) : -1;
+
+            int flags = (accountName >= 0 ? HAS_ACCOUNT_NAME : 0)
+                    | (path >= 0 ? HAS_PATH : 0)
+                    | (event.statusCode() != null ? HAS_STATUS : 0)
+                    | (event.inputTokens() != null ? HAS_INPUT : 0)
+                    | (event.outputTokens() != null ? HAS_OUTPUT : 0)
+                    | (event.cacheCreationTokens() != null ? HAS_CACHE_CREATION : 0)
+                    | (event.cacheReadTokens() != null ? HAS_CACHE_READ : 0)
+                    | (event.costNanos() != null ? HAS_COST : 0);
+            out.write(TAG_ROW);
+            out.write(flags);
+            UUID id = UUID.fromString(row.id());
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+            long millis = event.timestamp().toEpochMilli();
+            writeVarLong(out, zigzag(millis - lastMillis));
+            lastMillis = millis;
+            writeVarLong(out, account);
+            if (accountName >= 0) {
+                writeVarLong(out, accountName);
+            }
+            writeVarLong(out, model);
+            if (path >= 0) {
+                writeVarLong(out, path);
+            }
+            writeOptional(out, event.statusCode());
+            writeOptional(out, event.inputTokens());
+            writeOptional(out, event.outputTokens());
+            writeOptional(out, event.cacheCreationTokens());
+            writeOptional(out, event.cacheReadTokens());
+            if (event.costNanos() != null) {
+                writeVarLong(out, zigzag(event.costNanos()));
+            }
+            rows++;
+        }
+
+        long finish() throws IOException {
+            out.write(TAG_END);
+            writeVarLong(out, rows);
+            out.flush();
+            return rows;
+        }
+
+        private int define(String value) throws IOException {
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                return index;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_STRING_BYTES) {
+                bytes = Arrays.copyOf(bytes, MAX_STRING_BYTES);
+            }
+            out.write(TAG_STRING);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+            index = dictionary.size();
+            dictionary.put(value, index);
+            return index;
+        }
+
+        private void reset() throws IOException {
+            out.write(TAG_RESET);
+            dictionary.clear();
+        }
+    }
+
+    static final class Reader {
+        private final DataInputStream in;
+        private final List<String> dictionary = new ArrayList<>();
+        private long lastMillis;
+        private long rows;
+
+        Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(in);
+            byte[] magic = new byte[MAGIC.length];
+            this.in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a SwiftCast usage export");
+            }
+            int version = this.in.read();
+            if (version != VERSION) {
+                throw new IOException("Unsupported usage export version " + version);
+            }
+        }
+
+        /**
+         * @return 다음 행, 파일 끝이면 null
+         * @throws EOFException END 레코드 없이 파일이 끝난 경우 (잘린 파일)
+         */
+        UsageExportRow read() throws IOException {
+            while (true) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case TAG_STRING -> {
+                        int length = (int) readVarLong(in);
+                        if (length < 0 || length > MAX_STRING_BYTES) {
+                            throw new IOException("Invalid string length " + length);
+                        }
+                        byte[] bytes = new byte[length];
+                        in.readFully(bytes);
+                        dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+                    }
+                    case TAG_RESET -> dictionary.clear();
+                    case TAG_ROW -> {
+                        return readRow();
+                    }
+                    case TAG_END -> {
+                        long expected = readVarLong(in);
+                        if (expected != rows) {
+                            throw new IOException("Usage export row count mismatch: expected " + expected + ", read " + rows);
+                        }
+                        return null;
+                    }
+                    default -> throw new IOException("Unknown record tag " + tag);
+                }
+            }
+        }
+
+        private UsageExportRow readRow() throws IOException {
+            int flags = in.readUnsignedByte();
+            String id = new UUID(in.readLong(), in.readLong()).toString();
+            lastMillis += unzigzag(readVarLong(in));
+            String account = lookup(readVarLong(in));
+            String accountName = (flags & HAS_ACCOUNT_NAME) != 0 ? lookup(readVarLong(in)) : null;
+            String model = lookup(readVarLong(in));
+            String path = (flags & HAS_PATH) != 0 ? lookup(readVarLong(in)) : null;
+            Integer status = (flags & HAS_STATUS) != 0 ? (int) readVarLong(in) : null;
+            Integer input = (flags & HAS_INPUT) != 0 ? (int) readVarLong(in) : null;
+            Integer output = (flags & HAS_OUTPUT) != 0 ? (int) readVarLong(in) : null;
+            Integer cacheCreation = (flags & HAS_CACHE_CREATION) != 0 ? (int) readVarLong(in) : null;
+            Integer cacheRead = (flags & HAS_CACHE_READ) != 0 ? (int) readVarLong(in) : null;
+            Long cost = (flags & HAS_COST) != 0 ? unzigzag(readVarLong(in)) : null;
+            rows++;
+            return new UsageExportRow(id, accountName, new UsageEvent(Instant.ofEpochMilli(lastMillis), account, model,
+                    path, status, input, output, cacheCreation, cacheRead, cost));
+        }
+
+        private String lookup(long index) throws IOException {
+            if (index < 0 || index >= dictionary.size()) {
+                throw new IOException("Invalid string reference " + index);
+            }
+            return dictionary.get((int) index);
+        }
+    }
+
+    private static void writeOptional(DataOutputStream out, Integer value) throws IOException {
+        if (value != null) {
+            // 음수는 없지만 잘못된 값이 있어도 깨지지 않도록 부호 없는 32비트로 기록
+            writeVarLong(out, value & 0xFFFFFFFFL);
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
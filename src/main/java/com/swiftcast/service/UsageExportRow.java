@@ -0,0 +1,10 @@
+package com.swiftcast.service;
+
+import com.swiftcast.model.UsageEvent;
+
+/**
+ * 내보내기/가져오기 파일의 한 행. 가져올 때 계정 id 가 이 DB 에 없으면 accountName 으로 로컬 계정을 찾는다
+ * (없으면 자리표시 계정을 만든다).
+ */
+record UsageExportRow(String id, String accountName, UsageEvent event) {
+}
@@ -0,0 +1,438 @@
+package com.swiftcast.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftcast.config.SwiftCastProperties;
+import com.swiftcast.model.UsageEvent;
+import com.swiftcast.model.UsageExportFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * usage_logs 내보내기/가져오기.
+ * <p>
+ * 내보내기는 forward-only 커서로 한 행씩 읽어 바로 기록하므로 행 수와 상관없이 메모리 사용량이 일정하다.
+ * 가져오기도 파일을 스트리밍으로 읽어 배치 단위로 기록하며, 행 id(TimeOrderedId) 가 같으면 한 번만 들어가므로
+ * 여러 인스턴스의 파일이나 같은 파일을 여러 번 가져와도 합계가 중복되지 않는다. 단, 보존 정리로 지워진 행은 id 로
+ * 가릴 수 없으므로 보존 기간이 지난 행(보존 아카이브 포함)은 가져오지 않고 건너뛴다.
+ * 다른 인스턴스의 계정 id 는 이 DB 에 없으므로 계정 이름으로 로컬 계정에 연결하고, 없으면 자리표시 계정을 만든다.
+ */
+@Service
+@Slf4j
+public class UsageExportService {
+
+    private static final String SELECT_SQL = "SELECT u.id, u.timestamp, u.account_id, a.name, u.model, " +
+            "u.input_tokens, u.output_tokens, u.cache_creation_tokens, u.cache_read_tokens, u.cost_nanos, " +
+            "u.request_path, u.status_code FROM usage_logs u LEFT JOIN accounts a ON a.id = u.account_id " +
+            "WHERE u.timestamp >= ? AND u.timestamp < ? ORDER BY u.timestamp, u.id";
+
+    private static final String CSV_HEADER = "id,timestamp,account_id,account_name,model,input_tokens,output_tokens," +
+            "cache_creation_tokens,cache_read_tokens,cost_usd,request_path,status_code\n";
+
+    private static final int GZIP_MAGIC = 0x1f8b;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UsageLogWriter logWriter;
+    private final UsageRetentionService retentionService;
+    private final AccountService accountService;
+    private final ObjectMapper objectMapper;
+    private final SwiftCastProperties.Usage config;
+
+    public UsageExportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              UsageLogWriter logWriter, UsageRetentionService retentionService,
+                              AccountService accountService, ObjectMapper objectMapper, SwiftCastProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.logWriter = logWriter;
+        this.retentionService = retentionService;
+        this.accountService = accountService;
+        this.objectMapper = objectMapper;
+        this.config = properties.getUsage();
+    }
+
+    /**
+     * @param expired 보존 기간이 지나 건너뛴 행 수
+     */
+    public record ImportResult(long read, long inserted, long expired) {
+    }
+
+    /**
+     * 기간 [from, to) 의 행을 파일로 내보낸다. 임시 파일에 다 쓴 뒤 옮기므로 중간에 실패해도 반쪽 파일이 남지 않는다.
+     *
+     * @return 내보낸 행 수
+     */
+    public long exportTo(Path file, UsageExportFormat format, Instant from, Instant to) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long rows;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            rows = export(out, format, from, to);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Exported {} usage rows to {}", rows, file);
+        return rows;
+    }
+
+    /**
+     * 기간 [from, to) 의 행을 스트림으로 내보낸다. 스트림은 닫지 않는다.
+     */
+    public long export(OutputStream out, UsageExportFormat format, Instant from, Instant to) throws IOException {
+        RowSink sink = switch (format) {
+            case BINARY -> binarySink(out);
+            case CSV -> csvSink(out);
+            case NDJSON -> ndjsonSink(out);
+        };
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(config.getBatchSize());
+                ps.setTimestamp(1, Timestamp.from(from));
+                ps.setTimestamp(2, Timestamp.from(to));
+                return ps;
+            }, rs -> {
+                try {
+                    sink.write(toRow(rs));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return sink.finish();
+    }
+
+    /**
+     * 여러 인스턴스의 내보내기 파일(BINARY 또는 NDJSON, gzip 가능)을 병합한다.
+     */
+    public ImportResult importFiles(List<Path> files) throws IOException {
+        long read = 0;
+        long inserted = 0;
+        long expired = 0;
+        for (Path file : files) {
+            ImportResult result = importFile(file);
+            read += result.read();
+            inserted += result.inserted();
+            expired += result.expired();
+        }
+        return new ImportResult(read, inserted, expired);
+    }
+
+    public ImportResult importFile(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            ImportResult result = importStream(in);
+            log.info("Imported {} of {} usage rows from {} ({} older than the retention cutoff skipped, rest already present)",
+                    result.inserted(), result.read(), file, result.expired());
+            return result;
+        }
+    }
+
+    /**
+     * 형식(gzip 여부, BINARY/NDJSON)은 내용으로 판별한다.
+     */
+    public ImportResult importStream(InputStream source) throws IOException {
+        InputStream in = new BufferedInputStream(source);
+        in.mark(2);
+        int header = (in.read() << 8) | in.read();
+        in.reset();
+        if (header == GZIP_MAGIC) {
+            in = new BufferedInputStream(new GZIPInputStream(in));
+        }
+
+        in.mark(UsageBinaryFormat.MAGIC.length);
+        byte[] magic = in.readNBytes(UsageBinaryFormat.MAGIC.length);
+        in.reset();
+
+        Batch batch = new Batch();
+        if (Arrays.equals(magic, UsageBinaryFormat.MAGIC)) {
+            UsageBinaryFormat.Reader reader = new UsageBinaryFormat.Reader(in);
+            UsageExportRow row;
+            while ((row = reader.read()) != null) {
+                batch.add(row);
+            }
+        } else if (magic.length > 0 && magic[0] == '{') {
+            try (MappingIterator<JsonNode> nodes = objectMapper.readerFor(JsonNode.class).readValues(in)) {
+                while (nodes.hasNextValue()) {
+                    batch.add(fromJson(nodes.nextValue()));
+                }
+            }
+        } else {
+            throw new IOException("Unsupported usage import format (expected SwiftCast binary or NDJSON export)");
+        }
+        batch.flush();
+        return new ImportResult(batch.read, batch.inserted, batch.expired);
+    }
+
+    private final class Batch {
+        private final List<UsageJournal.Entry> entries = new ArrayList<>(config.getBatchSize());
+        private final Set<String> localIds = new HashSet<>();
+        private final Map<String, String> idsByName = new HashMap<>();
+        // 파일의 계정 id -> 로컬 계정 id
+        private final Map<String, String> resolved = new HashMap<>();
+        // 이보다 오래된 행은 정리로 이미 집계되고 지워졌을 수 있다
+        private final Instant cutoff = retentionService.cutoff();
+        private long read;
+        private long inserted;
+        private long expired;
+
+        Batch() {
+            jdbcTemplate.query("SELECT id, name FROM accounts", rs -> {
+                localIds.add(rs.getString(1));
+                idsByName.putIfAbsent(rs.getString(2), rs.getString(1));
+            });
+        }
+
+        void add(UsageExportRow row) {
+            read++;
+            UsageEvent event = row.event();
+            if (cutoff != null && event.timestamp().isBefore(cutoff)) {
+                expired++;
+                return;
+            }
+            String accountId = resolved.computeIfAbsent(event.accountId(), id -> resolve(id, row.accountName()));
+            if (!accountId.equals(event.accountId())) {
+                event = new UsageEvent(event.timestamp(), accountId, event.model(), event.requestPath(),
+                        event.statusCode(), event.inputTokens(), event.outputTokens(),
+                        event.cacheCreationTokens(), event.cacheReadTokens(), event.costNanos());
+            }
+            entries.add(new UsageJournal.Entry(row.id(), event, null));
+            if (entries.size() >= config.getBatchSize()) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (entries.isEmpty()) {
+                return;
+            }
+            Integer count = transactionTemplate.execute(status -> logWriter.write(entries));
+            inserted += count != null ? count : 0;
+            entries.clear();
+        }
+
+        // 같은 DB 에서 내보낸 파일이면 id 가 그대로 있고, 다른 인스턴스의 파일이면 이름으로 찾는다
+        private String resolve(String foreignId, String accountName) {
+            if (localIds.contains(foreignId)) {
+                return foreignId;
+            }
+            String name = accountName != null && !accountName.isBlank() ? accountName : "imported-" + foreignId;
+            String existing = idsByName.get(name);
+            if (existing != null) {
+                return existing;
+            }
+            String created = accountService.createPlaceholderAccount(name).getId();
+            localIds.add(created);
+            idsByName.put(name, created);
+            return created;
+        }
+    }
+
+    private interface RowSink {
+        void write(UsageExportRow row) throws IOException;
+
+        long finish() throws IOException;
+    }
+
+    private static RowSink binarySink(OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+        UsageBinaryFormat.Writer writer = new UsageBinaryFormat.Writer(gzip);
+        return new RowSink() {
+            @Override
+            public void write(UsageExportRow row) throws IOException {
+                writer.write(row);
+            }
+
+            @Override
+            public long finish() throws IOException {
+                long rows = writer.finish();
+                gzip.finish();
+                return rows;
+            }
+        };
+    }
+
+    private static RowSink csvSink(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(CSV_HEADER);
+        return new RowSink() {
+            private long rows;
+
+            @Override
+            public void write(UsageExportRow row) throws IOException {
+                UsageEvent event = row.event();
+                writer.write(row.id());
+                writer.write(',');
+                writer.write(event.timestamp().toString());
+                writer.write(',');
+                writeCsv(writer, event.accountId());
+                writer.write(',');
+                writeCsv(writer, row.accountName());
+                writer.write(',');
+                writeCsv(writer, event.model());
+                writer.write(',');
+                writeCsv(writer, event.inputTokens());
+                writer.write(',');
+                writeCsv(writer, event.outputTokens());
+                writer.write(',');
+                writeCsv(writer, event.cacheCreationTokens());
+                writer.write(',');
+                writeCsv(writer, event.cacheReadTokens());
+                writer.write(',');
+                // 나노달러 정수를 그대로 소수로 표기 (double 반올림 없음)
+                writeCsv(writer, event.costNanos() != null ? BigDecimal.valueOf(event.costNanos(), 9).toPlainString() : null);
+                writer.write(',');
+                writeCsv(writer, event.requestPath());
+                writer.write(',');
+                writeCsv(writer, event.statusCode());
+                writer.write('\n');
+                rows++;
+            }
+
+            @Override
+            public long finish() throws IOException {
+                writer.flush();
+                return rows;
+            }
+        };
+    }
+
+    private RowSink ndjsonSink(OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return new RowSink() {
+            private long rows;
+
+            @Override
+            public void write(UsageExportRow row) throws IOException {
+                UsageEvent event = row.event();
+                json.writeStartObject();
+                json.writeStringField("id", row.id());
+                json.writeNumberField("timestamp", event.timestamp().toEpochMilli());
+                json.writeStringField("accountId", event.accountId());
+                json.writeStringField("accountName", row.accountName());
+                json.writeStringField("model", event.model());
+                writeNullable(json, "inputTokens", event.inputTokens());
+                writeNullable(json, "outputTokens", event.outputTokens());
+                writeNullable(json, "cacheCreationTokens", event.cacheCreationTokens());
+                writeNullable(json, "cacheReadTokens", event.cacheReadTokens());
+                if (event.costNanos() != null) {
+                    json.writeNumberField("costNanos", event.costNanos());
+                } else {
+                    json.writeNullField("costNanos");
+                }
+                json.writeStringField("requestPath", event.requestPath());
+                writeNullable(json, "statusCode", event.statusCode());
+                json.writeEndObject();
+                json.writeRaw('\n');
+                rows++;
+            }
+
+            @Override
+            public long finish() throws IOException {
+                json.close();
+                return rows;
+            }
+        };
+    }
+
+    private static UsageExportRow toRow(ResultSet rs) throws SQLException {
+        return new UsageExportRow(rs.getString(1), rs.getString(4), new UsageEvent(
+                rs.getTimestamp(2).toInstant(), rs.getString(3), rs.getString(5), rs.getString(11),
+                getInteger(rs, 12), getInteger(rs, 6), getInteger(rs, 7), getInteger(rs, 8), getInteger(rs, 9),
+                getLong(rs, 10)));
+    }
+
+    private static UsageExportRow fromJson(JsonNode node) throws IOException {
+        JsonNode id = node.get("id");
+        JsonNode timestamp = node.get("timestamp");
+        if (id == null || timestamp == null || !node.hasNonNull("accountId") || !node.hasNonNull("model")) {
+            throw new IOException("Usage import row is missing required fields: " + node);
+        }
+        Instant at = timestamp.isNumber() ? Instant.ofEpochMilli(timestamp.asLong()) : Instant.parse(timestamp.asText());
+        return new UsageExportRow(id.asText(), text(node, "accountName"), new UsageEvent(at,
+                node.get("accountId").asText(), node.get("model").asText(), text(node, "requestPath"),
+                integer(node, "statusCode"), integer(node, "inputTokens"), integer(node, "outputTokens"),
+                integer(node, "cacheCreationTokens"), integer(node, "cacheReadTokens"),
+                node.hasNonNull("costNanos") ? Long.valueOf(node.get("costNanos").asLong()) : null));
+    }
+
+    private static String text(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asText() : null;
+    }
+
+    private static Integer integer(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asInt() : null;
+    }
+
+    private static Integer getInteger(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Long getLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static void writeNullable(JsonGenerator json, String field, Integer value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value);
+        }
+    }
+
+    private static void writeCsv(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
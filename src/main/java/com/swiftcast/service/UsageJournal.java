@@ -0,0 +1,568 @@
+package com.swiftcast.service;
+
+import com.swiftcast.config.SwiftCastProperties;
+import com.swiftcast.model.TimeOrderedId;
+import com.swiftcast.model.UsageEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 사용량 이벤트 선기록(write-ahead) 저널.
+ * <p>
+ * 이벤트는 큐에 들어가기 전에 memory-mapped 세그먼트 파일에 먼저 추가된다. 매핑된 페이지에 쓰는 것은 메모리 복사뿐이라
+ * 요청 스레드에서 시스템 콜이 없고, 프로세스가 죽어도 OS 페이지 캐시에 남는다. 전원 장애에 대비한 fsync 는
+ * 별도 스레드가 syncInterval 마다 또는 syncBatch 개가 쌓일 때마다 한 번에 수행한다 (그룹 커밋).
+ * <p>
+ * 세그먼트가 가득 차면 동기화 스레드가 미리 만들어 매핑해 둔 다음 세그먼트로 바꿔 끼우므로 요청 스레드에서 파일을 만들지 않는다.
+ * 닫힌 세그먼트의 이벤트가 모두 usage_logs 에 커밋되면 파일을 지운다.
+ * 시작 시 남아 있는 세그먼트는 다시 읽어 기록하며, 이벤트마다 저장된 id 로 이미 기록된 행은 건너뛴다.
+ * <p>
+ * 레코드 형식: [int 길이][int CRC32C][본문]. 길이 0 은 세그먼트의 끝이고, CRC 가 맞지 않는 레코드(기록 도중 중단)에서 읽기를 멈춘다.
+ */
+@Component
+@Slf4j
+public class UsageJournal {
+
+    private static final int SEGMENT_MAGIC = 0x53574A31; // "SWJ1"
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "usage-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    // 끝내 기록하지 못한 이벤트. 확장자를 .journal 로 바꾸면 다음 시작 때 다시 읽힌다
+    private static final String DEAD_LETTER_SUFFIX = ".dead";
+    private static final long SPARE_RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static final int HAS_STATUS = 1;
+    private static final int HAS_INPUT = 1 << 1;
+    private static final int HAS_OUTPUT = 1 << 2;
+    private static final int HAS_CACHE_CREATION = 1 << 3;
+    private static final int HAS_CACHE_READ = 1 << 4;
+    private static final int HAS_COST = 1 << 5;
+
+    private final SwiftCastProperties.Usage config;
+    private final Path directory;
+
+    // 닫혔지만 아직 삭제되지 않은 세그먼트 (append 는 active 에만)
+    private final List<Segment> sealed = new CopyOnWriteArrayList<>();
+    private final AtomicLong unsynced = new AtomicLong();
+
+    private volatile Segment active;
+    // 동기화 스레드가 미리 만들어 둔 다음 세그먼트
+    private volatile Segment spare;
+    // 동기화 스레드 전용
+    private long nextSpareAttempt = System.nanoTime();
+    private long nextSequence;
+    private volatile boolean enabled;
+    private volatile boolean running;
+    private volatile Thread syncer;
+
+    public UsageJournal(SwiftCastProperties properties) {
+        this.config = properties.getUsage();
+        this.directory = Paths.get(config.getJournalDir());
+    }
+
+    /**
+     * 저널 엔트리. segment 가 null 이면 저널에 기록되지 않은 (메모리에만 있는) 이벤트이다.
+     */
+    public record Entry(String id, UsageEvent event, Segment segment) {
+    }
+
+    /**
+     * 저널을 열고 이전 실행에서 커밋되지 못한 이벤트를 돌려준다. 반환된 엔트리도 {@link #commit(List)} 해야 세그먼트가 지워진다.
+     */
+    public synchronized List<Entry> open() {
+        if (!config.isJournalEnabled()) {
+            return List.of();
+        }
+        List<Entry> recovered = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            for (Path path : listSegments()) {
+                long sequence = sequenceOf(path);
+                nextSequence = Math.max(nextSequence, sequence + 1);
+                Segment segment = recover(path, sequence, recovered);
+                if (segment != null) {
+                    sealed.add(segment);
+                }
+            }
+            enabled = true;
+        } catch (IOException e) {
+            log.error("Usage journal unavailable, events are kept in memory only: {}", e.getMessage());
+            return recovered;
+        }
+
+        running = true;
+        syncer = Thread.ofPlatform()
+                .name("swiftcast-usage-journal")
+                .daemon(true)
+                .start(this::runSyncer);
+        if (!recovered.isEmpty()) {
+            log.info("Usage journal: recovered {} uncommitted events from {} segments", recovered.size(), sealed.size());
+        }
+        return recovered;
+    }
+
+    /**
+     * 이벤트를 저널에 추가한다. fsync 는 기다리지 않는다.
+     */
+    public Entry append(UsageEvent event) {
+        String id = TimeOrderedId.next();
+        if (!enabled) {
+            return new Entry(id, event, null);
+        }
+        byte[] record = encode(id, event);
+        Segment target;
+        synchronized (this) {
+            target = active;
+            // 다음 레코드 길이 자리(0 = 끝)를 남겨 둔다
+            int required = RECORD_HEADER_BYTES + record.length + Integer.BYTES;
+            if (target == null || target.buffer.remaining() < required) {
+                target = rotate(required);
+                if (target == null) {
+                    return new Entry(id, event, null);
+                }
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(record);
+            target.buffer.putInt(record.length);
+            target.buffer.putInt((int) crc.getValue());
+            target.buffer.put(record);
+            target.pending.incrementAndGet();
+        }
+        if (unsynced.incrementAndGet() >= config.getJournalSyncBatch()) {
+            Thread s = syncer;
+            if (s != null) {
+                LockSupport.unpark(s);
+            }
+        }
+        return new Entry(id, event, target);
+    }
+
+    /**
+     * usage_logs 트랜잭션이 커밋된 엔트리를 표시한다. 닫힌 세그먼트는 모든 엔트리가 커밋되면 동기화 스레드가 삭제한다.
+     */
+    public void commit(List<Entry> entries) {
+        for (Entry entry : entries) {
+            if (entry.segment() != null) {
+                entry.segment().pending.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 반복해서 기록에 실패한 엔트리를 세그먼트 형식의 dead-letter 파일로 옮기고 커밋된 것으로 표시한다.
+     *
+     * @return 파일을 쓰지 못하면 false (엔트리는 저널에 그대로 남는다)
+     */
+    public boolean quarantine(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        List<byte[]> records = new ArrayList<>(entries.size());
+        int size = Integer.BYTES * 2;
+        for (Entry entry : entries) {
+            byte[] record = encode(entry.id(), entry.event());
+            records.add(record);
+            size += RECORD_HEADER_BYTES + record.length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(SEGMENT_MAGIC);
+        CRC32C crc = new CRC32C();
+        for (byte[] record : records) {
+            crc.reset();
+            crc.update(record);
+            out.putInt(record.length);
+            out.putInt((int) crc.getValue());
+            out.put(record);
+        }
+        out.putInt(0);
+        out.flip();
+
+        Path path;
+        synchronized (this) {
+            path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence++, DEAD_LETTER_SUFFIX));
+        }
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            log.error("Failed to write usage dead-letter file {}: {}", path, e.getMessage());
+            return false;
+        }
+        commit(entries);
+        log.warn("Moved {} unwritable usage events to {}", entries.size(), path);
+        return true;
+    }
+
+    /**
+     * 마지막 fsync 후 커밋된 세그먼트를 정리하고 닫는다. 커밋되지 않은 이벤트가 있는 세그먼트는 다음 시작 때 다시 읽힌다.
+     */
+    public void close() {
+        running = false;
+        Thread s = syncer;
+        if (s != null) {
+            LockSupport.unpark(s);
+            try {
+                s.join(config.getShutdownTimeout().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Segment unused;
+        synchronized (this) {
+            enabled = false;
+            if (active != null) {
+                seal(active);
+                active = null;
+            }
+            unused = spare;
+            spare = null;
+        }
+        if (unused != null) {
+            discard(unused);
+        }
+        sync();
+        sweep();
+        for (Segment segment : sealed) {
+            closeQuietly(segment);
+        }
+        if (!sealed.isEmpty()) {
+            log.warn("Usage journal closed with {} segments pending replay", sealed.size());
+        }
+        sealed.clear();
+    }
+
+    public int getSegmentCount() {
+        return sealed.size() + (active != null ? 1 : 0);
+    }
+
+    private void runSyncer() {
+        long intervalNanos = config.getJournalSyncInterval().toNanos();
+        while (running) {
+            prepareSpare();
+            if (unsynced.get() < config.getJournalSyncBatch()) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+            sync();
+            sweep();
+        }
+    }
+
+    private void sync() {
+        if (unsynced.getAndSet(0) == 0) {
+            return;
+        }
+        for (Segment segment : sealed) {
+            if (!segment.synced) {
+                segment.buffer.force();
+                segment.synced = true;
+            }
+        }
+        Segment current = active;
+        if (current != null) {
+            current.buffer.force();
+        }
+    }
+
+    // 모든 이벤트가 커밋된 닫힌 세그먼트 삭제
+    private void sweep() {
+        for (Segment segment : sealed) {
+            if (segment.pending.get() > 0) {
+                continue;
+            }
+            closeQuietly(segment);
+            try {
+                Files.deleteIfExists(segment.path);
+                sealed.remove(segment);
+            } catch (IOException e) {
+                // 매핑이 아직 해제되지 않은 경우 (Windows) 다음 주기에 다시 시도
+                log.debug("Usage journal segment {} not deleted yet: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    // 호출자가 this 를 잠근 상태. 미리 만든 세그먼트로 바꿔 끼우고, 없을 때만 (드묾) 직접 만든다
+    private Segment rotate(int required) {
+        if (active != null) {
+            seal(active);
+            active = null;
+        }
+        Segment next = spare;
+        if (next != null && next.buffer.remaining() >= required) {
+            spare = null;
+            active = next;
+        } else {
+            log.debug("Usage journal spare segment not ready, creating one on the append path");
+            active = create(nextSequence++, Math.max(config.getJournalSegmentBytes(), Integer.BYTES + required));
+            if (active == null) {
+                log.error("Usage journaling disabled, events are kept in memory only");
+                enabled = false;
+                return null;
+            }
+        }
+        // 다음 세그먼트를 미리 만들도록 동기화 스레드를 깨운다
+        Thread s = syncer;
+        if (s != null) {
+            LockSupport.unpark(s);
+        }
+        return active;
+    }
+
+    // 동기화 스레드에서 실행. 파일 생성/매핑은 잠금 밖에서 한다
+    private void prepareSpare() {
+        if (!enabled || spare != null || System.nanoTime() - nextSpareAttempt < 0) {
+            return;
+        }
+        long sequence;
+        synchronized (this) {
+            sequence = nextSequence++;
+        }
+        Segment created = create(sequence, config.getJournalSegmentBytes());
+        if (created == null) {
+            // 디스크가 가득 찬 경우 등에 매 주기 다시 시도하지 않는다
+            nextSpareAttempt = System.nanoTime() + SPARE_RETRY_NANOS;
+            return;
+        }
+        synchronized (this) {
+            if (enabled && spare == null) {
+                spare = created;
+                return;
+            }
+        }
+        discard(created);
+    }
+
+    private Segment create(long sequence, int size) {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        try {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(SEGMENT_MAGIC);
+            return new Segment(path, channel, buffer);
+        } catch (IOException e) {
+            log.error("Failed to create usage journal segment {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void discard(Segment segment) {
+        closeQuietly(segment);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            // 남아도 다음 시작 때 빈 세그먼트로 읽혀 지워진다
+            log.debug("Unused usage journal segment {} not deleted: {}", segment.path, e.getMessage());
+        }
+    }
+
+    private void seal(Segment segment) {
+        segment.synced = false;
+        sealed.add(segment);
+        // 동기화 스레드가 닫힌 세그먼트도 fsync 하도록
+        unsynced.incrementAndGet();
+    }
+
+    private Segment recover(Path path, long sequence, List<Entry> recovered) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        long fileSize = channel.size();
+        if (fileSize < Integer.BYTES || fileSize > Integer.MAX_VALUE) {
+            channel.close();
+            Files.delete(path);
+            return null;
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        Segment segment = new Segment(path, channel, buffer);
+        segment.synced = true;
+        if (buffer.getInt() != SEGMENT_MAGIC) {
+            log.warn("Ignoring usage journal segment {} with unknown format", path);
+            closeQuietly(segment);
+            return null;
+        }
+
+        int count = 0;
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] record = new byte[length];
+            buffer.get(record);
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Usage journal segment {} has a torn record after {} events, ignoring the rest", path, count);
+                break;
+            }
+            try {
+                Entry entry = decode(record, segment);
+                segment.pending.incrementAndGet();
+                recovered.add(entry);
+                count++;
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                log.warn("Usage journal segment {} has an unreadable record after {} events", path, count);
+                break;
+            }
+        }
+        log.debug("Usage journal segment {} (#{}): {} events", path.getFileName(), sequence, count);
+        return segment;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static byte[] encode(String id, UsageEvent event) {
+        byte[] account = utf8(event.accountId());
+        byte[] model = utf8(event.model());
+        byte[] path = utf8(event.requestPath());
+        ByteBuffer out = ByteBuffer.allocate(16 + 12 + 1 + 12 + account.length + model.length + path.length + 5 * 4 + 8);
+
+        UUID uuid = UUID.fromString(id);
+        out.putLong(uuid.getMostSignificantBits());
+        out.putLong(uuid.getLeastSignificantBits());
+        out.putLong(event.timestamp().getEpochSecond());
+        out.putInt(event.timestamp().getNano());
+        out.put((byte) ((event.statusCode() != null ? HAS_STATUS : 0)
+                | (event.inputTokens() != null ? HAS_INPUT : 0)
+                | (event.outputTokens() != null ? HAS_OUTPUT : 0)
+                | (event.cacheCreationTokens() != null ? HAS_CACHE_CREATION : 0)
+                | (event.cacheReadTokens() != null ? HAS_CACHE_READ : 0)
+                | (event.costNanos() != null ? HAS_COST : 0)));
+        putBytes(out, account);
+        putBytes(out, model);
+        putBytes(out, path);
+        putNullable(out, event.statusCode());
+        putNullable(out, event.inputTokens());
+        putNullable(out, event.outputTokens());
+        putNullable(out, event.cacheCreationTokens());
+        putNullable(out, event.cacheReadTokens());
+        if (event.costNanos() != null) {
+            out.putLong(event.costNanos());
+        }
+        byte[] record = new byte[out.position()];
+        out.flip().get(record);
+        return record;
+    }
+
+    private static Entry decode(byte[] record, Segment segment) {
+        ByteBuffer in = ByteBuffer.wrap(record);
+        String id = new UUID(in.getLong(), in.getLong()).toString();
+        Instant timestamp = Instant.ofEpochSecond(in.getLong(), in.getInt());
+        int flags = in.get();
+        String account = getString(in);
+        String model = getString(in);
+        String path = getString(in);
+        Integer status = (flags & HAS_STATUS) != 0 ? in.getInt() : null;
+        Integer input = (flags & HAS_INPUT) != 0 ? in.getInt() : null;
+        Integer output = (flags & HAS_OUTPUT) != 0 ? in.getInt() : null;
+        Integer cacheCreation = (flags & HAS_CACHE_CREATION) != 0 ? in.getInt() : null;
+        Integer cacheRead = (flags & HAS_CACHE_READ) != 0 ? in.getInt() : null;
+        Long cost = (flags & HAS_COST) != 0 ? in.getLong() : null;
+        return new Entry(id, new UsageEvent(timestamp, account, model, path, status, input, output,
+                cacheCreation, cacheRead, cost), segment);
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    // 길이 -1 = null
+    private static void putBytes(ByteBuffer out, byte[] bytes) {
+        if (bytes == null) {
+            out.putInt(-1);
+        } else {
+            out.putInt(bytes.length);
+            out.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " exceeds record");
+        }
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void putNullable(ByteBuffer out, Integer value) {
+        if (value != null) {
+            out.putInt(value);
+        }
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close usage journal segment {}: {}", segment.path, e.getMessage());
+        }
+    }
+
+    /**
+     * 세그먼트 파일 하나. pending 은 저널에 추가됐지만 아직 usage_logs 에 커밋되지 않은 이벤트 수.
+     */
+    public static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean synced;
+
+        private Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
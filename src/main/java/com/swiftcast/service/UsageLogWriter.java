@@ -0,0 +1,71 @@
+package com.swiftcast.service;
+
+import com.swiftcast.model.UsageEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * usage_logs batch insert + 집계 갱신. 수집기(UsageRecorder)와 가져오기(UsageExportService)가 함께 쓴다.
+ * <p>
+ * INSERT OR IGNORE 로 기록하므로 같은 id 의 행(저널 재생, 여러 인스턴스 파일 병합)은 한 번만 들어가고,
+ * 새로 기록된 행만 집계에 더해진다.
+ */
+@Component
+@RequiredArgsConstructor
+public class UsageLogWriter {
+
+    private static final String INSERT_SQL = "INSERT OR IGNORE INTO usage_logs " +
+            "(id, timestamp, account_id, model, input_tokens, output_tokens, cache_creation_tokens, cache_read_tokens, " +
+            "cost_nanos, cost_usd, request_path, status_code) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UsageRollupService rollupService;
+
+    /**
+     * 호출자의 트랜잭션 안에서 실행되어야 한다.
+     *
+     * @return 새로 기록된 행 수
+     */
+    public int write(List<UsageJournal.Entry> batch) {
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+            UsageEvent event = entry.event();
+            ps.setString(1, entry.id());
+            ps.setTimestamp(2, Timestamp.from(event.timestamp()));
+            ps.setString(3, event.accountId());
+            ps.setString(4, event.model());
+            ps.setObject(5, event.inputTokens(), Types.INTEGER);
+            ps.setObject(6, event.outputTokens(), Types.INTEGER);
+            ps.setObject(7, event.cacheCreationTokens(), Types.INTEGER);
+            ps.setObject(8, event.cacheReadTokens(), Types.INTEGER);
+            ps.setObject(9, event.costNanos(), Types.BIGINT);
+            ps.setObject(10, event.costUsd(), Types.DOUBLE);
+            ps.setString(11, event.requestPath());
+            ps.setObject(12, event.statusCode(), Types.INTEGER);
+        });
+        List<UsageEvent> inserted = inserted(batch, counts);
+        // 원본 로그와 같은 트랜잭션에서 집계 갱신 (이미 있던 id 는 제외)
+        rollupService.accumulate(inserted);
+        return inserted.size();
+    }
+
+    private static List<UsageEvent> inserted(List<UsageJournal.Entry> batch, int[][] counts) {
+        List<UsageEvent> events = new ArrayList<>(batch.size());
+        int i = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                // SUCCESS_NO_INFO 는 기록된 것으로 본다
+                if (count != 0) {
+                    events.add(batch.get(i).event());
+                }
+                i++;
+            }
+        }
+        return events;
+    }
+}
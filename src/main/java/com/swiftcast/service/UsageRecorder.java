@@ -0,0 +1,314 @@
+package com.swiftcast.service;
+
+import com.swiftcast.config.SwiftCastProperties;
+import com.swiftcast.model.UsageEvent;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 사용량 이벤트 비동기 수집기.
+ * <p>
+ * 프록시 스레드는 {@link #record(UsageEvent)} 로 lock-free 큐에 넣기만 하고 즉시 반환한다.
+ * 단일 writer 스레드가 큐를 배치 단위로 비워 하나의 트랜잭션 안에서 JDBC batch insert 를 수행한다.
+ * 큐가 가득 차면 새 이벤트를 버리고(drop-newest) 카운트만 남긴다 — 요청 지연보다 집계 누락을 택한다.
+ * 종료 시에는 큐에 남은 이벤트를 모두 기록한 뒤 멈춘다.
+ * <p>
+ * 큐에 넣기 전에 {@link UsageJournal} 에 먼저 추가하므로 기록 전에 프로세스가 죽어도 다음 시작 때 복구된다.
+ * 이벤트 id 는 저널에서 정해지고 {@link UsageLogWriter} 가 INSERT OR IGNORE 로 기록하므로,
+ * 복구 시 이미 기록된 행은 집계에 다시 더해지지 않는다. 복구한 이벤트가 계속 기록되지 않으면 간격을 늘려 재시도하다가
+ * dead-letter 파일로 옮긴다. 보존 기간이 지난 복구 이벤트도 (정리로 지워진 행을 다시 집계하지 않도록) 기록하지 않고 옮긴다.
+ * <p>
+ * 스키마는 JPA 가 백그라운드에서 만들므로(ddl-auto) writer 는 그 초기화가 끝난 뒤에 첫 기록을 한다.
+ */
+@Service
+@Slf4j
+public class UsageRecorder implements SmartLifecycle {
+
+    private static final Duration MAX_REPLAY_BACKOFF = Duration.ofMinutes(5);
+
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final UsageLogWriter logWriter;
+    private final UsageJournal journal;
+    private final UsageRetentionService retentionService;
+    private final SwiftCastProperties.Usage config;
+
+    private final ConcurrentLinkedQueue<UsageJournal.Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    private volatile boolean running = false;
+    private volatile Thread writer;
+    // 이전 실행의 저널에서 복구했지만 아직 기록하지 못한 이벤트 (writer 스레드만 바꾼다)
+    private volatile List<UsageJournal.Entry> recovered = List.of();
+    // 지금 기록 중인 배치 (커밋되면 비운다)
+    private volatile List<UsageJournal.Entry> writing = List.of();
+    private int replayFailures;
+    private long nextReplayAt;
+
+    public UsageRecorder(TransactionTemplate transactionTemplate, EntityManagerFactory entityManagerFactory,
+                         UsageLogWriter logWriter, UsageJournal journal, UsageRetentionService retentionService,
+                         SwiftCastProperties properties) {
+        this.transactionTemplate = transactionTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.logWriter = logWriter;
+        this.journal = journal;
+        this.retentionService = retentionService;
+        this.config = properties.getUsage();
+    }
+
+    /**
+     * 사용량 이벤트를 큐에 넣는다. 절대 블로킹하지 않는다.
+     *
+     * @return 이벤트 id (usage_logs 의 행 id). 큐가 가득 차 이벤트를 버린 경우 null
+     */
+    public String record(UsageEvent event) {
+        int size = queued.incrementAndGet();
+        if (size > config.getQueueCapacity()) {
+            queued.decrementAndGet();
+            dropped.increment();
+            if (dropped.sum() % 1000 == 1) {
+                log.warn("Usage queue full ({}), dropping events (total dropped: {})",
+                        config.getQueueCapacity(), dropped.sum());
+            }
+            return null;
+        }
+        UsageJournal.Entry entry = journal.append(event);
+        queue.offer(entry);
+
+        // 배치 크기만큼 쌓였으면 writer 를 바로 깨운다
+        if (size == config.getBatchSize()) {
+            Thread w = writer;
+            if (w != null) {
+                LockSupport.unpark(w);
+            }
+        }
+        return entry.id();
+    }
+
+    /**
+     * 아직 usage_logs 에 커밋되지 않은 이벤트 (복구 대기, 기록 중인 배치, 큐). 순간 사본이라 그 사이 커밋된 것이 섞일 수 있다.
+     */
+    public List<UsageJournal.Entry> getPendingEntries() {
+        // 엔트리는 큐 -> 기록 중 배치 순서로 옮겨지므로 같은 순서로 읽어야 빠지는 것이 없다
+        List<UsageJournal.Entry> pending = new ArrayList<>(recovered);
+        pending.addAll(queue);
+        pending.addAll(writing);
+        return pending;
+    }
+
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    @Override
+    public void start() {
+        recovered = withoutExpired(journal.open());
+        running = true;
+        writer = Thread.ofPlatform()
+                .name("swiftcast-usage-writer")
+                .daemon(true)
+                .start(this::runWriter);
+        log.info("Usage recorder started (capacity: {}, batch: {})", config.getQueueCapacity(), config.getBatchSize());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread w = writer;
+        if (w != null) {
+            LockSupport.unpark(w);
+            try {
+                w.join(config.getShutdownTimeout().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // writer 가 시간 내에 끝내지 못한 나머지도 기록
+        drainAll();
+        journal.close();
+        log.info("Usage recorder stopped (written: {}, dropped: {})", written.sum(), dropped.sum());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // 프록시 서버(DEFAULT_PHASE - 2048)보다 먼저 시작하고 늦게 멈춰서 마지막 요청의 사용량까지 기록
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void runWriter() {
+        awaitSchema();
+        long intervalNanos = config.getFlushInterval().toNanos();
+        while (running) {
+            // 기록하지 못한 복구 이벤트는 다음 주기에 다시 시도
+            if (!recovered.isEmpty()) {
+                replayRecovered();
+            }
+            if (queued.get() < config.getBatchSize()) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+            drainAll();
+        }
+    }
+
+    /**
+     * 새로 설치한 경우 usage_logs 테이블은 JPA 백그라운드 초기화(ddl-auto)가 만든다.
+     * EntityManagerFactory 프록시는 초기화가 끝날 때까지 호출을 블로킹하므로 writer 스레드에서 한 번 기다린다
+     * (그동안 이벤트는 큐와 저널에 쌓인다).
+     */
+    private void awaitSchema() {
+        try {
+            entityManagerFactory.getMetamodel();
+        } catch (RuntimeException e) {
+            log.error("JPA initialization failed, usage writes will be retried from the journal", e);
+        }
+    }
+
+    /**
+     * 실패하면 flushInterval 부터 두 배씩 늘려 (최대 MAX_REPLAY_BACKOFF) 다시 시도하고,
+     * journalReplayAttempts 번 실패하면 남은 이벤트를 dead-letter 파일로 옮겨 더 이상 막히지 않게 한다.
+     */
+    /**
+     * 보존 기간이 지난 복구 이벤트는 정리로 이미 지워진 행일 수 있어 다시 기록하지 않고 dead-letter 파일로 옮긴다.
+     */
+    private List<UsageJournal.Entry> withoutExpired(List<UsageJournal.Entry> entries) {
+        Instant cutoff = retentionService.cutoff();
+        if (cutoff == null || entries.isEmpty()) {
+            return entries;
+        }
+        List<UsageJournal.Entry> current = new ArrayList<>(entries.size());
+        List<UsageJournal.Entry> expired = new ArrayList<>();
+        for (UsageJournal.Entry entry : entries) {
+            (entry.event().timestamp().isBefore(cutoff) ? expired : current).add(entry);
+        }
+        if (!expired.isEmpty()) {
+            log.warn("Usage journal: {} recovered events are older than the retention cutoff {}, not replaying them",
+                    expired.size(), cutoff);
+            journal.quarantine(expired);
+        }
+        return current;
+    }
+
+    private void replayRecovered() {
+        if (replayFailures > 0 && System.nanoTime() - nextReplayAt < 0) {
+            return;
+        }
+        List<UsageJournal.Entry> remaining = recovered;
+        int batchSize = config.getBatchSize();
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            List<UsageJournal.Entry> batch = remaining.subList(from, Math.min(from + batchSize, remaining.size()));
+            Exception failure = write(batch);
+            if (failure != null) {
+                recovered = new ArrayList<>(remaining.subList(from, remaining.size()));
+                onReplayFailure(failure);
+                return;
+            }
+        }
+        log.info("Usage journal replay complete: {} events", remaining.size());
+        recovered = List.of();
+        replayFailures = 0;
+    }
+
+    private void onReplayFailure(Exception failure) {
+        replayFailures++;
+        if (replayFailures >= config.getJournalReplayAttempts()) {
+            log.error("Usage journal replay failed {} times, quarantining {} events: {}",
+                    replayFailures, recovered.size(), failure.toString());
+            if (journal.quarantine(recovered)) {
+                recovered = List.of();
+                replayFailures = 0;
+                return;
+            }
+        }
+        long backoff = Math.min(config.getFlushInterval().toNanos() << Math.min(replayFailures, 20),
+                MAX_REPLAY_BACKOFF.toNanos());
+        nextReplayAt = System.nanoTime() + backoff;
+        // 스택 트레이스는 처음 한 번만 남긴다
+        if (replayFailures == 1) {
+            log.error("Failed to replay {} recovered usage events, retrying in {} ms",
+                    recovered.size(), TimeUnit.NANOSECONDS.toMillis(backoff), failure);
+        } else {
+            log.warn("Usage journal replay attempt {} failed, retrying in {} ms: {}",
+                    replayFailures, TimeUnit.NANOSECONDS.toMillis(backoff), failure.toString());
+        }
+    }
+
+    private synchronized void drainAll() {
+        List<UsageJournal.Entry> batch = new ArrayList<>(config.getBatchSize());
+        while (true) {
+            batch.clear();
+            Iterator<UsageJournal.Entry> head = queue.iterator();
+            while (batch.size() < config.getBatchSize() && head.hasNext()) {
+                batch.add(head.next());
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            // 큐에서 빼기 전에 기록 중 배치로 올려 두어 getPendingEntries 가 옮겨지는 엔트리를 놓치지 않게 한다
+            writing = List.copyOf(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                queue.poll();
+                queued.decrementAndGet();
+            }
+            writeBatch(batch);
+        }
+    }
+
+    /**
+     * 실패하면 저널 엔트리는 커밋되지 않은 채 남아 다음 시작 때 다시 기록된다
+     */
+    private void writeBatch(List<UsageJournal.Entry> batch) {
+        Exception failure = write(batch);
+        if (failure != null) {
+            log.error("Failed to write usage batch ({} rows)", batch.size(), failure);
+        }
+    }
+
+    /**
+     * @return 실패 원인, 성공하면 null
+     */
+    private Exception write(List<UsageJournal.Entry> batch) {
+        long start = System.nanoTime();
+        writing = List.copyOf(batch);
+        try {
+            transactionTemplate.executeWithoutResult(status -> logWriter.write(batch));
+            journal.commit(batch);
+            written.add(batch.size());
+            log.debug("Usage batch written: {} rows in {} ms", batch.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return null;
+        } catch (Exception e) {
+            return e;
+        } finally {
+            writing = List.of();
+        }
+    }
+}
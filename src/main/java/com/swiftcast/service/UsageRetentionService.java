@@ -0,0 +1,151 @@
+package com.swiftcast.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swiftcast.config.SwiftCastProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 오래된 usage_logs 원본 행 정리.
+ * <p>
+ * 집계(usage_rollups)는 원본 행과 같은 트랜잭션에서 갱신되므로 usage_logs 에 있는 행은 모두 이미 집계되어 있다.
+ * 보존 기간이 지난 행은 gzip NDJSON 아카이브로 옮긴 뒤 배치 단위로 삭제한다.
+ * 아카이브 기록 후 삭제 전에 중단되면 다음 실행에서 같은 행이 다시 기록될 수 있다 (아카이브를 읽을 때 id 로 중복 제거).
+ * 아카이브의 행은 이미 집계에 들어 있으므로 사용량 가져오기는 보존 기간이 지난 행을 건너뛴다 ({@link #cutoff()}).
+ */
+@Service
+@Slf4j
+public class UsageRetentionService {
+
+    private static final String SELECT_EXPIRED_SQL = "SELECT id, timestamp, account_id, model, input_tokens, " +
+            "output_tokens, cache_creation_tokens, cache_read_tokens, cost_nanos, cost_usd, request_path, status_code " +
+            "FROM usage_logs WHERE timestamp < ? " +
+            "ORDER BY timestamp, id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final SwiftCastProperties.Usage config;
+
+    public UsageRetentionService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 ObjectMapper objectMapper, SwiftCastProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.config = properties.getUsage();
+    }
+
+    /**
+     * 이 시각보다 오래된 행은 이미 집계된 뒤 정리로 지워졌을 수 있다. 다시 기록하면 INSERT OR IGNORE 로 걸러지지 않아
+     * 집계가 두 번 더해지므로, 저널 복구/가져오기는 이보다 오래된 행을 기록하지 않는다. 보존 기간이 없으면 null.
+     */
+    public Instant cutoff() {
+        return config.getRetentionDays() > 0 ? Instant.now().minus(Duration.ofDays(config.getRetentionDays())) : null;
+    }
+
+    @Scheduled(cron = "${swiftcast.usage.retention-cron:0 30 3 * * *}")
+    public void compact() {
+        Instant cutoff = cutoff();
+        if (cutoff == null) {
+            return;
+        }
+        try {
+            long removed = archiveAndDelete(cutoff);
+            if (removed > 0) {
+                log.info("Usage retention: archived and removed {} rows older than {}", removed, cutoff);
+            }
+        } catch (Exception e) {
+            log.error("Usage retention failed", e);
+        }
+    }
+
+    public long archiveAndDelete(Instant cutoff) throws IOException {
+        Path archiveDir = Paths.get(config.getArchiveDir());
+        Files.createDirectories(archiveDir);
+        Path archiveFile = archiveDir.resolve("usage_archive_" + Instant.now().getEpochSecond() + ".ndjson.gz");
+
+        long total = 0;
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archiveFile));
+             JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            while (true) {
+                List<String> ids = new ArrayList<>(config.getRetentionBatchSize());
+                jdbcTemplate.query(SELECT_EXPIRED_SQL, rs -> {
+                    ids.add(rs.getString("id"));
+                    writeRow(json, rs);
+                }, Timestamp.from(cutoff), config.getRetentionBatchSize());
+
+                if (ids.isEmpty()) {
+                    break;
+                }
+                // 아카이브가 디스크에 기록된 뒤에만 원본 삭제
+                json.flush();
+                out.flush();
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate("DELETE FROM usage_logs WHERE id = ?", ids, ids.size(),
+                                (ps, id) -> ps.setString(1, id)));
+                total += ids.size();
+            }
+        }
+
+        if (total == 0) {
+            Files.deleteIfExists(archiveFile);
+        }
+        return total;
+    }
+
+    private void writeRow(JsonGenerator json, ResultSet rs) throws SQLException {
+        try {
+            json.writeStartObject();
+            json.writeStringField("id", rs.getString("id"));
+            json.writeNumberField("timestamp", rs.getTimestamp("timestamp").toInstant().toEpochMilli());
+            json.writeStringField("accountId", rs.getString("account_id"));
+            json.writeStringField("model", rs.getString("model"));
+            writeNullableLong(json, "inputTokens", rs, "input_tokens");
+            writeNullableLong(json, "outputTokens", rs, "output_tokens");
+            writeNullableLong(json, "cacheCreationTokens", rs, "cache_creation_tokens");
+            writeNullableLong(json, "cacheReadTokens", rs, "cache_read_tokens");
+            writeNullableLong(json, "costNanos", rs, "cost_nanos");
+            double cost = rs.getDouble("cost_usd");
+            if (rs.wasNull()) {
+                json.writeNullField("costUsd");
+            } else {
+                json.writeNumberField("costUsd", cost);
+            }
+            json.writeStringField("requestPath", rs.getString("request_path"));
+            writeNullableLong(json, "statusCode", rs, "status_code");
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new SQLException("Failed to write usage archive", e);
+        }
+    }
+
+    private static void writeNullableLong(JsonGenerator json, String field, ResultSet rs, String column)
+            throws SQLException, IOException {
+        long value = rs.getLong(column);
+        if (rs.wasNull()) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.swiftcast.service;
+
+import com.swiftcast.model.RollupGrain;
+import com.swiftcast.model.UsageEvent;
+import com.swiftcast.model.UsageTotals;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * usage_rollups 집계 테이블 관리.
+ * <p>
+ * 수집 배치마다 (계정, 모델, 단위, 버킷) 별로 메모리에서 먼저 합친 뒤 UPSERT 하므로
+ * 배치 크기와 상관없이 버킷 수만큼만 쓰기가 발생한다. 조회는 구간 양 끝의 자투리 시간은
+ * HOURLY, 가운데의 온전한 날짜는 DAILY 버킷을 읽어 한 번의 쿼리로 합산한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class UsageRollupService {
+
+    // cost_nanos 컬럼이 생기기 전에 만들어진 행은 cost_usd 만 있으므로 거기서 환산한다
+    private static final String STORED_COST_NANOS = "COALESCE(cost_nanos, CAST(ROUND(cost_usd * 1e9) AS INTEGER))";
+
+    private static final String UPSERT_SQL = "INSERT INTO usage_rollups " +
+            "(account_id, model, grain, bucket_start, request_count, input_tokens, output_tokens, cost_nanos, cost_usd) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT(account_id, bucket_start, grain, model) DO UPDATE SET " +
+            "request_count = request_count + excluded.request_count, " +
+            "input_tokens = input_tokens + excluded.input_tokens, " +
+            "output_tokens = output_tokens + excluded.output_tokens, " +
+            "cost_nanos = " + STORED_COST_NANOS + " + excluded.cost_nanos, " +
+            "cost_usd = (" + STORED_COST_NANOS + " + excluded.cost_nanos) / 1e9";
+
+    private static final String SUM_COLUMNS = "COALESCE(SUM(request_count), 0), COALESCE(SUM(input_tokens), 0), " +
+            "COALESCE(SUM(output_tokens), 0), COALESCE(SUM(" + STORED_COST_NANOS + "), 0)";
+
+    // SQLite 바인드 변수 개수 제한(기본 999) 안에서 한 번에 조회할 id 수
+    private static final int ID_QUERY_BATCH = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 수집 배치를 집계 테이블에 반영한다. 호출자의 트랜잭션 안에서 실행되어야 한다.
+     */
+    public void accumulate(List<UsageEvent> events) {
+        Map<BucketKey, Bucket> buckets = new HashMap<>();
+        for (UsageEvent event : events) {
+            for (RollupGrain grain : RollupGrain.values()) {
+                BucketKey key = new BucketKey(event.accountId(), event.model(), grain, grain.bucketStart(event.timestamp()));
+                buckets.computeIfAbsent(key, k -> new Bucket()).add(event);
+            }
+        }
+
+        List<Object[]> args = new ArrayList<>(buckets.size());
+        buckets.forEach((key, bucket) -> args.add(new Object[]{
+                key.accountId(), key.model(), key.grain().name(), key.bucketStart(),
+                bucket.requests, bucket.inputTokens, bucket.outputTokens, bucket.costNanos, bucket.costNanos / 1e9
+        }));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+    }
+
+    /**
+     * 기간 [from, to) 의 합계. 시간 단위로 정렬되며 accountId 가 null 이면 전체 계정.
+     */
+    public UsageTotals getTotals(String accountId, Instant from, Instant to) {
+        RangeQuery range = RangeQuery.of(accountId, from, to);
+        if (range == null) {
+            return UsageTotals.EMPTY;
+        }
+        return jdbcTemplate.queryForObject(
+                "SELECT " + SUM_COLUMNS + " FROM usage_rollups WHERE " + range.where(),
+                (rs, rowNum) -> new UsageTotals(null, rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)),
+                range.args());
+    }
+
+    /**
+     * 기간 [from, to) 의 모델별 합계.
+     */
+    public List<UsageTotals> getTotalsByModel(String accountId, Instant from, Instant to) {
+        RangeQuery range = RangeQuery.of(accountId, from, to);
+        if (range == null) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+                "SELECT model, " + SUM_COLUMNS + " FROM usage_rollups WHERE " + range.where() +
+                        " GROUP BY model ORDER BY model",
+                (rs, rowNum) -> new UsageTotals(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5)),
+                range.args());
+    }
+
+    /**
+     * 기간 [from, to) 의 계정·모델별 합계를 읽고, 같은 읽기 트랜잭션(스냅샷)에서 ids 중 이미 usage_logs 에 있는 id 를 찾는다.
+     * ids 는 합계를 읽은 뒤에 구하므로, 그때까지 받은 실시간 이벤트가 합계에 이미 들어 있는지 정확히 가릴 수 있다.
+     */
+    @Transactional(readOnly = true)
+    public Snapshot snapshot(Instant from, Instant to, Supplier<? extends Collection<String>> ids) {
+        List<AccountTotals> totals = new ArrayList<>();
+        RangeQuery range = RangeQuery.of(null, from, to);
+        if (range != null) {
+            totals = jdbcTemplate.query(
+                    "SELECT account_id, model, " + SUM_COLUMNS + " FROM usage_rollups WHERE " + range.where() +
+                            " GROUP BY account_id, model",
+                    (rs, rowNum) -> new AccountTotals(rs.getString(1), new UsageTotals(rs.getString(2),
+                            rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6))),
+                    range.args());
+        }
+
+        List<String> candidates = new ArrayList<>(ids.get());
+        Set<String> recorded = new HashSet<>();
+        for (int start = 0; start < candidates.size(); start += ID_QUERY_BATCH) {
+            List<String> chunk = candidates.subList(start, Math.min(start + ID_QUERY_BATCH, candidates.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            recorded.addAll(jdbcTemplate.queryForList(
+                    "SELECT id FROM usage_logs WHERE id IN (" + placeholders + ")", String.class, chunk.toArray()));
+        }
+        return new Snapshot(totals, recorded);
+    }
+
+    public record AccountTotals(String accountId, UsageTotals totals) {
+    }
+
+    /**
+     * @param recorded 요청한 id 중 스냅샷 시점에 이미 기록되어 합계에 들어 있던 id
+     */
+    public record Snapshot(List<AccountTotals> totals, Set<String> recorded) {
+    }
+
+    private record BucketKey(String accountId, String model, RollupGrain grain, long bucketStart) {
+    }
+
+    private static final class Bucket {
+        long requests;
+        long inputTokens;
+        long outputTokens;
+        long costNanos;
+
+        void add(UsageEvent event) {
+            requests++;
+            inputTokens += event.inputTokens() != null ? event.inputTokens() : 0;
+            outputTokens += event.outputTokens() != null ? event.outputTokens() : 0;
+            costNanos += event.costNanos() != null ? event.costNanos() : 0;
+        }
+    }
+
+    private record RangeQuery(String where, Object[] args) {
+
+        static RangeQuery of(String accountId, Instant from, Instant to) {
+            long start = RollupGrain.HOURLY.bucketStart(from);
+            long end = RollupGrain.HOURLY.bucketCeil(to);
+            if (start >= end) {
+                return null;
+            }
+
+            List<Object> args = new ArrayList<>();
+            StringBuilder where = new StringBuilder();
+            if (accountId != null) {
+                where.append("account_id = ? AND ");
+                args.add(accountId);
+            }
+
+            long dayStart = RollupGrain.DAILY.bucketCeil(Instant.ofEpochSecond(start));
+            long dayEnd = RollupGrain.DAILY.bucketStart(Instant.ofEpochSecond(end));
+            if (dayStart >= dayEnd) {
+                where.append("(grain = 'HOURLY' AND bucket_start >= ? AND bucket_start < ?)");
+                args.add(start);
+                args.add(end);
+            } else {
+                where.append("((grain = 'HOURLY' AND bucket_start >= ? AND bucket_start < ?)")
+                        .append(" OR (grain = 'DAILY' AND bucket_start >= ? AND bucket_start < ?)")
+                        .append(" OR (grain = 'HOURLY' AND bucket_start >= ? AND bucket_start < ?))");
+                args.add(start);
+                args.add(dayStart);
+                args.add(dayStart);
+                args.add(dayEnd);
+                args.add(dayEnd);
+                args.add(end);
+            }
+            return new RangeQuery(where.toString(), args.toArray());
+        }
+    }
+}
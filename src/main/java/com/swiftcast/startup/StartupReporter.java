@@ -0,0 +1,63 @@
+package com.swiftcast.startup;
+
+import com.swiftcast.config.SwiftCastProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 애플리케이션 준비 완료 시 시작 단계 타이밍과 가장 오래 걸린 Spring 초기화 단계를 출력한다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StartupReporter {
+
+    private static final int TOP_STEPS = 10;
+
+    private final SwiftCastProperties properties;
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        StartupTimeline.mark("application.ready");
+        Map<String, Long> phases = StartupTimeline.drainForReport();
+        if (!properties.getStartup().isReport()) {
+            return;
+        }
+
+        StringBuilder report = new StringBuilder("Startup timing (ms since main):");
+        phases.forEach((phase, millis) -> report.append(String.format("%n  %6d  %s", millis, phase)));
+
+        ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+        if (startup instanceof BufferingApplicationStartup buffering) {
+            // 기록된 단계를 비워 메모리를 돌려준다
+            List<TimelineEvent> steps = buffering.drainBufferedTimeline().getEvents();
+            report.append(String.format("%nSlowest startup steps:"));
+            steps.stream()
+                    .sorted(Comparator.comparing(TimelineEvent::getDuration).reversed())
+                    .limit(TOP_STEPS)
+                    .forEach(step -> report.append(String.format("%n  %6d  %s %s",
+                            step.getDuration().toMillis(), step.getStartupStep().getName(), describe(step))));
+        }
+        log.info(report.toString());
+    }
+
+    private static String describe(TimelineEvent step) {
+        StringBuilder beanName = new StringBuilder();
+        step.getStartupStep().getTags().forEach(tag -> {
+            if (tag.getKey().equals("beanName")) {
+                beanName.append(tag.getValue());
+            }
+        });
+        return beanName.isEmpty() ? "" : "(" + beanName + ")";
+    }
+}
@@ -0,0 +1,40 @@
+package com.swiftcast.startup;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 시작 단계별 경과 시간 기록 (main 진입 기준, 밀리초).
+ * <p>
+ * Spring 컨텍스트 밖(JavaFX 창 표시 등)에서도 기록해야 하므로 정적 유틸리티로 둔다.
+ * 리포트가 이미 출력된 뒤에 도착한 단계(지연 로딩된 JPA 등)는 바로 로그로 남긴다.
+ */
+@Slf4j
+public final class StartupTimeline {
+
+    private static final long ORIGIN = System.nanoTime();
+    private static final Map<String, Long> PHASES = new LinkedHashMap<>();
+    private static boolean reported;
+
+    private StartupTimeline() {
+    }
+
+    public static synchronized void mark(String phase) {
+        long elapsed = elapsedMillis();
+        PHASES.putIfAbsent(phase, elapsed);
+        if (reported) {
+            log.info("Startup phase '{}' reached at {} ms", phase, elapsed);
+        }
+    }
+
+    static synchronized Map<String, Long> drainForReport() {
+        reported = true;
+        return new LinkedHashMap<>(PHASES);
+    }
+
+    public static long elapsedMillis() {
+        return (System.nanoTime() - ORIGIN) / 1_000_000;
+    }
+}
@@ -0,0 +1,374 @@
+package com.swiftcast.ui;
+
+import com.swiftcast.metrics.ProxyError;
+import com.swiftcast.metrics.UsageEventBus;
+import com.swiftcast.model.Account;
+import com.swiftcast.model.AccountSnapshot;
+import com.swiftcast.model.UsageEvent;
+import com.swiftcast.model.UsageTotals;
+import com.swiftcast.service.AccountService;
+import com.swiftcast.service.UsageJournal;
+import com.swiftcast.service.UsageRecorder;
+import com.swiftcast.service.UsageRollupService;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.VBox;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 실시간 사용량 패널 (초당 요청/토큰, 오늘 계정·모델별 사용량과 비용, 최근 오류).
+ * <p>
+ * 이벤트 버스 구독자는 lock-free 카운터만 올리고, 화면은 고정 주기로만 다시 그린다. 프레임마다 표시할 값을
+ * 백그라운드 스레드에서 모두 계산한 뒤 Platform.runLater 한 번으로 반영하며, 이전 프레임이 아직 반영되지 않았으면
+ * 그 프레임은 건너뛴다. 따라서 트래픽이 많아도 FX 스레드가 하는 일은 일정하다.
+ * <p>
+ * 오늘 집계는 구독을 먼저 시작한 뒤 DB 집계와 아직 기록되지 않은 이벤트로 채우며, 그 사이 받은 이벤트와의 중복은
+ * 이벤트 id 로 가린다. 날짜가 바뀌면 집계 맵을 통째로 새 것으로 바꾼다 (제자리에서 비우지 않는다).
+ */
+@Slf4j
+final class LiveUsagePanel implements UsageEventBus.Listener {
+
+    private static final Duration FRAME_INTERVAL = Duration.ofMillis(250);
+    private static final int RECENT_ERRORS = 20;
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZONE);
+
+    private final UsageEventBus usageBus;
+    private final AccountService accountService;
+    private final UsageRollupService rollupService;
+    private final UsageRecorder usageRecorder;
+    private final ExecutorService blockingExecutor;
+
+    // 이벤트 스레드에서 갱신
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final AtomicReference<Day> today = new AtomicReference<>(new Day(LocalDate.now(ZONE)));
+    // 초기값을 채우는 동안 받은 이벤트 (id -> 이벤트), 채우고 나면 null
+    private volatile ConcurrentMap<String, UsageEvent> seeding;
+    private final AtomicReferenceArray<ProxyError> errors = new AtomicReferenceArray<>(RECENT_ERRORS);
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicBoolean framePending = new AtomicBoolean();
+
+    // 프레임 스레드 전용
+    private long lastRequests;
+    private long lastTokens;
+    private long lastFrameNanos = System.nanoTime();
+    private long lastErrorCount;
+
+    private final Label summaryLabel = new Label();
+    private final TableView<UsageRow> table = new TableView<>();
+    private final ListView<String> errorList = new ListView<>();
+
+    private volatile Disposable frames;
+    private volatile Runnable unsubscribe;
+
+    LiveUsagePanel(UsageEventBus usageBus, AccountService accountService, UsageRollupService rollupService,
+                   UsageRecorder usageRecorder, ExecutorService blockingExecutor) {
+        this.usageBus = usageBus;
+        this.accountService = accountService;
+        this.rollupService = rollupService;
+        this.usageRecorder = usageRecorder;
+        this.blockingExecutor = blockingExecutor;
+    }
+
+    VBox createContent() {
+        summaryLabel.getStyleClass().add("label-info");
+
+        table.getColumns().add(column("계정", UsageRow::account, 140));
+        table.getColumns().add(column("모델", UsageRow::model, 200));
+        table.getColumns().add(column("요청", UsageRow::requests, 70));
+        table.getColumns().add(column("입력 토큰", UsageRow::inputTokens, 100));
+        table.getColumns().add(column("출력 토큰", UsageRow::outputTokens, 100));
+        table.getColumns().add(column("비용", row -> String.format("$%.4f", row.costUsd()), 90));
+        table.setPlaceholder(new Label("오늘 사용량이 없습니다"));
+        table.setPrefHeight(180);
+
+        Label errorLabel = new Label("최근 오류");
+        errorLabel.getStyleClass().add("label-title");
+        errorList.setPlaceholder(new Label("오류 없음"));
+        errorList.setPrefHeight(100);
+
+        VBox content = new VBox(10, summaryLabel, table, errorLabel, errorList);
+        content.getStyleClass().add("card-content");
+        return content;
+    }
+
+    /**
+     * 구독을 먼저 시작하고 오늘 집계를 백그라운드에서 채운 뒤, 고정 주기 프레임을 돌린다.
+     */
+    void start() {
+        seeding = new ConcurrentHashMap<>();
+        unsubscribe = usageBus.subscribe(this);
+        CompletableFuture.runAsync(this::seedToday, blockingExecutor)
+                .whenComplete((result, error) -> {
+                    seeding = null;
+                    if (error != null) {
+                        log.warn("Failed to load today's usage totals: {}", error.getMessage());
+                    }
+                });
+        frames = Flux.interval(FRAME_INTERVAL).subscribe(tick -> frame());
+    }
+
+    void stop() {
+        Disposable f = frames;
+        if (f != null) {
+            f.dispose();
+        }
+        Runnable u = unsubscribe;
+        if (u != null) {
+            u.run();
+        }
+    }
+
+    @Override
+    public void onUsage(String id, UsageEvent event) {
+        long input = event.inputTokens() != null ? event.inputTokens() : 0;
+        long output = event.outputTokens() != null ? event.outputTokens() : 0;
+        requests.increment();
+        tokens.add(input + output);
+        Day day = dayOf(LocalDate.ofInstant(event.timestamp(), ZONE));
+        if (day == null) {
+            // 날짜가 바뀐 뒤 도착한 어제 이벤트
+            return;
+        }
+        day.add(event, 1);
+        ConcurrentMap<String, UsageEvent> received = seeding;
+        if (received != null && id != null) {
+            received.put(id, event);
+        }
+    }
+
+    @Override
+    public void onError(ProxyError error) {
+        long sequence = errorCount.getAndIncrement();
+        errors.set((int) (sequence % RECENT_ERRORS), error);
+    }
+
+    /**
+     * DB 집계 + 아직 기록되지 않은 이벤트(큐/저널)를 더하고, 구독 후 이미 센 이벤트와 겹치는 만큼은 id 로 가린다.
+     * 기록 대기 목록은 집계 스냅샷보다 먼저, 받은 이벤트 id 는 스냅샷 뒤에 모아야 경계에서 빠지거나 두 번 세지 않는다.
+     */
+    private void seedToday() {
+        LocalDate date = LocalDate.now(ZONE);
+        Instant startOfDay = date.atStartOfDay(ZONE).toInstant();
+        ConcurrentMap<String, UsageEvent> received = seeding;
+        List<UsageJournal.Entry> pending = usageRecorder.getPendingEntries();
+        Map<String, UsageEvent> counted = new HashMap<>();
+        List<String> candidates = new ArrayList<>();
+
+        UsageRollupService.Snapshot snapshot = rollupService.snapshot(startOfDay, Instant.now(), () -> {
+            counted.putAll(received);
+            candidates.addAll(counted.keySet());
+            pending.forEach(entry -> candidates.add(entry.id()));
+            return candidates;
+        });
+
+        Day day = dayOf(date);
+        if (day == null || !day.date().equals(date)) {
+            return;
+        }
+        for (UsageRollupService.AccountTotals totals : snapshot.totals()) {
+            UsageTotals t = totals.totals();
+            day.row(totals.accountId(), t.model())
+                    .add(t.requests(), t.inputTokens(), t.outputTokens(), t.costNanos());
+        }
+        // 구독 후 받았지만 스냅샷에 이미 들어 있던 이벤트는 한 번 뺀다
+        counted.forEach((id, event) -> {
+            if (snapshot.recorded().contains(id) && isOn(event, date)) {
+                day.add(event, -1);
+            }
+        });
+        // 스냅샷에도 없고 아직 받지도 않은 기록 대기 이벤트를 더한다
+        for (UsageJournal.Entry entry : pending) {
+            if (!snapshot.recorded().contains(entry.id()) && !received.containsKey(entry.id())
+                    && isOn(entry.event(), date)) {
+                day.add(entry.event(), 1);
+            }
+        }
+    }
+
+    private static boolean isOn(UsageEvent event, LocalDate date) {
+        return LocalDate.ofInstant(event.timestamp(), ZONE).equals(date);
+    }
+
+    /**
+     * 날짜의 집계 맵. 더 새 날짜면 맵을 통째로 바꾸고, 지난 날짜면 null.
+     */
+    private Day dayOf(LocalDate date) {
+        for (;;) {
+            Day current = today.get();
+            int order = date.compareTo(current.date());
+            if (order == 0) {
+                return current;
+            }
+            if (order < 0) {
+                return null;
+            }
+            Day next = new Day(date);
+            if (today.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private void frame() {
+        // FX 스레드가 이전 프레임을 아직 그리지 못했으면 건너뛴다
+        if (!framePending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Frame next = buildFrame();
+            Platform.runLater(() -> {
+                try {
+                    apply(next);
+                } finally {
+                    framePending.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            framePending.set(false);
+            log.warn("Usage dashboard frame failed: {}", e.getMessage());
+        }
+    }
+
+    private Frame buildFrame() {
+        // 시계가 뒤로 간 경우에는 지금 맵을 그대로 쓴다
+        Day current = dayOf(LocalDate.now(ZONE));
+        ConcurrentMap<RowKey, Row> rowsToday = (current != null ? current : today.get()).rows();
+
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - lastFrameNanos) / 1e9);
+        long totalRequests = requests.sum();
+        long totalTokens = tokens.sum();
+        double requestRate = (totalRequests - lastRequests) / seconds;
+        double tokenRate = (totalTokens - lastTokens) / seconds;
+        lastFrameNanos = now;
+        lastRequests = totalRequests;
+        lastTokens = totalTokens;
+
+        AccountSnapshot snapshot = accountService.getSnapshot();
+        List<UsageRow> rows = new ArrayList<>(rowsToday.size());
+        long costNanos = 0;
+        for (var entry : rowsToday.entrySet()) {
+            Row row = entry.getValue();
+            long cost = row.costNanos.sum();
+            costNanos += cost;
+            String account = snapshot.findById(entry.getKey().accountId())
+                    .map(Account::getName)
+                    .orElse(entry.getKey().accountId());
+            rows.add(new UsageRow(account, entry.getKey().model(), row.requests.sum(),
+                    row.inputTokens.sum(), row.outputTokens.sum(), cost / 1e9));
+        }
+        rows.sort(Comparator.comparingDouble(UsageRow::costUsd).reversed()
+                .thenComparing(Comparator.comparingLong(UsageRow::requests).reversed()));
+
+        String summary = String.format("요청 %.1f/s | 토큰 %.0f/s | 오늘 비용 $%.4f",
+                requestRate, tokenRate, costNanos / 1e9);
+        return new Frame(summary, rows, recentErrors());
+    }
+
+    // 오류가 새로 들어온 경우에만 목록을 다시 만든다 (최신 순)
+    private List<String> recentErrors() {
+        long count = errorCount.get();
+        if (count == lastErrorCount) {
+            return null;
+        }
+        lastErrorCount = count;
+        int size = (int) Math.min(count, RECENT_ERRORS);
+        List<String> lines = new ArrayList<>(size);
+        for (long i = count - 1; i >= count - size; i--) {
+            ProxyError error = errors.get((int) (i % RECENT_ERRORS));
+            if (error != null) {
+                lines.add(String.format("%s  %d  %s  %s%s", TIME_FORMATTER.format(error.timestamp()),
+                        error.status(), error.path(), error.message(),
+                        error.account() != null ? " (" + error.account() + ")" : ""));
+            }
+        }
+        return lines;
+    }
+
+    private void apply(Frame frame) {
+        summaryLabel.setText(frame.summary());
+        table.getItems().setAll(frame.rows());
+        if (frame.errors() != null) {
+            errorList.getItems().setAll(frame.errors());
+        }
+    }
+
+    private static <T> TableColumn<UsageRow, T> column(String title, Function<UsageRow, T> value, double width) {
+        TableColumn<UsageRow, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(value.apply(cell.getValue())));
+        column.setPrefWidth(width);
+        return column;
+    }
+
+    private record RowKey(String accountId, String model) {
+    }
+
+    private record Day(LocalDate date, ConcurrentMap<RowKey, Row> rows) {
+
+        Day(LocalDate date) {
+            this(date, new ConcurrentHashMap<>());
+        }
+
+        Row row(String accountId, String model) {
+            return rows.computeIfAbsent(new RowKey(accountId, model), k -> new Row());
+        }
+
+        // sign 이 -1 이면 이미 센 이벤트를 뺀다
+        void add(UsageEvent event, int sign) {
+            long input = event.inputTokens() != null ? event.inputTokens() : 0;
+            long output = event.outputTokens() != null ? event.outputTokens() : 0;
+            long cost = event.costNanos() != null ? event.costNanos() : 0;
+            row(event.accountId(), event.model()).add(sign, sign * input, sign * output, sign * cost);
+        }
+    }
+
+    private static final class Row {
+        final LongAdder requests = new LongAdder();
+        final LongAdder inputTokens = new LongAdder();
+        final LongAdder outputTokens = new LongAdder();
+        final LongAdder costNanos = new LongAdder();
+
+        void add(long requestCount, long input, long output, long cost) {
+            requests.add(requestCount);
+            inputTokens.add(input);
+            outputTokens.add(output);
+            costNanos.add(cost);
+        }
+    }
+
+    private record UsageRow(String account, String model, long requests, long inputTokens, long outputTokens,
+                            double costUsd) {
+    }
+
+    private record Frame(String summary, List<UsageRow> rows, List<String> errors) {
+    }
+}
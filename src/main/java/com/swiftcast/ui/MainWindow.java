@@ -1,28 +1,55 @@
 package com.swiftcast.ui;
 
+import com.swiftcast.SwiftCastApplication;
+import com.swiftcast.metrics.MetricsSummary;
+import com.swiftcast.metrics.ProxyMetrics;
+import com.swiftcast.metrics.UsageEventBus;
 import com.swiftcast.model.Account;
+import com.swiftcast.model.AccountSnapshot;
 import com.swiftcast.model.BackupInfo;
+import com.swiftcast.model.UsageExportFormat;
+import com.swiftcast.proxy.CacheStats;
 import com.swiftcast.proxy.ProxyServer;
+import com.swiftcast.proxy.ResponseCache;
 import com.swiftcast.service.AccountService;
 import com.swiftcast.service.BackupService;
+import com.swiftcast.service.UsageExportService;
+import com.swiftcast.service.UsageRecorder;
+import com.swiftcast.service.UsageRollupService;
+import jakarta.annotation.PreDestroy;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.Duration;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 @Component
+@Profile("!" + SwiftCastApplication.HEADLESS_PROFILE)
 @RequiredArgsConstructor
 @Slf4j
 public class MainWindow {
@@ -30,11 +57,24 @@ public class MainWindow {
     private final AccountService accountService;
     private final BackupService backupService;
     private final ProxyServer proxyServer;
+    private final ProxyMetrics proxyMetrics;
+    private final ResponseCache responseCache;
+    private final UsageEventBus usageBus;
+    private final UsageRollupService rollupService;
+    private final UsageExportService usageExportService;
+    private final UsageRecorder usageRecorder;
+    // DB/파일 작업은 FX 스레드가 아닌 가상 스레드에서 실행
+    private final ExecutorService blockingExecutor;
 
     private Label statusLabel;
+    private Label metricsLabel;
+    private long lastRequestCount;
     private Button toggleProxyButton;
+    private Button changePortButton;
+    private Label portLabel;
     private ListView<Account> accountListView;
     private ListView<BackupInfo> backupListView;
+    private LiveUsagePanel liveUsagePanel;
 
     private static final DateTimeFormatter DATE_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
@@ -49,15 +89,20 @@ public class MainWindow {
         // 프록시 제어 섹션
         TitledPane proxyPane = createProxyControlPane();
 
+        // 실시간 사용량 섹션
+        TitledPane usagePane = createLiveUsagePane();
+
         // 계정 관리 섹션
         TitledPane accountPane = createAccountManagementPane();
 
         // 백업 관리 섹션
         TitledPane backupPane = createBackupManagementPane();
 
-        root.getChildren().addAll(proxyPane, accountPane, backupPane);
+        root.getChildren().addAll(proxyPane, usagePane, accountPane, backupPane);
 
-        Scene scene = new Scene(root, 750, 850);
+        ScrollPane scrollPane = new ScrollPane(root);
+        scrollPane.setFitToWidth(true);
+        Scene scene = new Scene(scrollPane, 800, 900);
 
         // CSS 스타일 적용
         scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
@@ -84,16 +129,57 @@ public class MainWindow {
         toggleProxyButton.setOnAction(e -> toggleProxy());
         toggleProxyButton.setPrefWidth(150);
 
-        Label portLabel = new Label("포트: 8080");
+        changePortButton = new Button("포트 변경");
+        changePortButton.getStyleClass().add("button");
+        changePortButton.setOnAction(e -> showChangePortDialog());
+
+        HBox proxyButtons = new HBox(10, toggleProxyButton, changePortButton);
+
+        portLabel = new Label("포트: " + proxyServer.getPort());
         portLabel.getStyleClass().add("label-info");
 
-        content.getChildren().addAll(statusLabel, toggleProxyButton, portLabel);
+        metricsLabel = new Label();
+        metricsLabel.getStyleClass().add("label-info");
+
+        content.getChildren().addAll(statusLabel, proxyButtons, portLabel, metricsLabel);
+
+        // 1초마다 실시간 메트릭 갱신 (카운터 조회만 하므로 FX 스레드에서 바로 처리)
+        Timeline metricsTimeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> updateMetrics()));
+        metricsTimeline.setCycleCount(Animation.INDEFINITE);
+        metricsTimeline.play();
+        updateMetrics();
 
         TitledPane pane = new TitledPane("🚀 프록시 제어", content);
         pane.setCollapsible(false);
         return pane;
     }
 
+    private TitledPane createLiveUsagePane() {
+        liveUsagePanel = new LiveUsagePanel(usageBus, accountService, rollupService, usageRecorder,
+                blockingExecutor);
+        VBox content = liveUsagePanel.createContent();
+        liveUsagePanel.start();
+
+        Button exportButton = new Button("⬇ 내보내기");
+        exportButton.getStyleClass().add("button");
+        Button importButton = new Button("⬆ 가져오기");
+        importButton.getStyleClass().add("button");
+        exportButton.setOnAction(e -> showExportDialog(exportButton.getScene().getWindow()));
+        importButton.setOnAction(e -> importUsage(importButton.getScene().getWindow()));
+        content.getChildren().add(new HBox(10, exportButton, importButton));
+
+        TitledPane pane = new TitledPane("📊 실시간 사용량", content);
+        pane.setCollapsible(false);
+        return pane;
+    }
+
+    @PreDestroy
+    public void dispose() {
+        if (liveUsagePanel != null) {
+            liveUsagePanel.stop();
+        }
+    }
+
     private TitledPane createAccountManagementPane() {
         VBox content = new VBox(15);
         content.setPadding(new Insets(0));
@@ -111,9 +197,15 @@ public class MainWindow {
                 super.updateItem(account, empty);
                 if (empty || account == null) {
                     setText(null);
+                } else if (Boolean.TRUE.equals(account.getPlaceholder())) {
+                    // 가져온 사용량에만 쓰이는 계정 (활성화/라우팅 불가)
+                    setText(account.getName() + " (가져온 기록)");
+                    setStyle("-fx-text-fill: gray;");
                 } else {
                     String activeMarker = account.getIsActive() ? "✓ " : "";
-                    setText(activeMarker + account.getName() + " - " + account.getBaseUrl());
+                    String poolMarker = Boolean.TRUE.equals(account.getPoolEnabled())
+                            ? " [풀 ×" + account.getWeight() + "]" : "";
+                    setText(activeMarker + account.getName() + " - " + account.getBaseUrl() + poolMarker);
                     setStyle(account.getIsActive() ? "-fx-font-weight: bold;" : "");
                 }
             }
@@ -125,14 +217,22 @@ public class MainWindow {
         addButton.getStyleClass().add("button");
         Button switchButton = new Button("✓ 활성화");
         switchButton.getStyleClass().add("button-success");
+        Button routingButton = new Button("⚖ 라우팅");
+        routingButton.getStyleClass().add("button");
         Button deleteButton = new Button("🗑 삭제");
         deleteButton.getStyleClass().add("button-danger");
 
         addButton.setOnAction(e -> showAddAccountDialog());
         switchButton.setOnAction(e -> switchSelectedAccount());
+        routingButton.setOnAction(e -> showRoutingDialog());
+        accountListView.getSelectionModel().selectedItemProperty().addListener((obs, previous, account) -> {
+            boolean placeholder = account != null && Boolean.TRUE.equals(account.getPlaceholder());
+            switchButton.setDisable(placeholder);
+            routingButton.setDisable(placeholder);
+        });
         deleteButton.setOnAction(e -> deleteSelectedAccount());
 
-        buttons.getChildren().addAll(addButton, switchButton, deleteButton);
+        buttons.getChildren().addAll(addButton, switchButton, routingButton, deleteButton);
 
         content.getChildren().addAll(listLabel, accountListView, buttons);
 
@@ -189,21 +289,69 @@ public class MainWindow {
     }
 
     private void toggleProxy() {
-        try {
-            if (proxyServer.isRunning()) {
-                proxyServer.stop();
-            } else {
-                proxyServer.start(8080);
-            }
-            updateProxyStatus();
-        } catch (Exception e) {
-            showError("프록시 오류", e.getMessage());
+        if (proxyServer.isRunning()) {
+            runProxyAction(proxyServer::stop);
+        } else {
+            runProxyAction(proxyServer::start);
         }
     }
 
+    private void showChangePortDialog() {
+        TextInputDialog dialog = new TextInputDialog(String.valueOf(proxyServer.getPort()));
+        dialog.setTitle("포트 변경");
+        dialog.setHeaderText("새 프록시 포트 (처리 중인 요청은 기존 포트에서 마무리됩니다)");
+        dialog.setContentText("포트:");
+
+        dialog.showAndWait().ifPresent(value -> {
+            int port;
+            try {
+                port = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                showError("포트 오류", "숫자를 입력하세요: " + value);
+                return;
+            }
+            if (port < 1 || port > 65535) {
+                showError("포트 오류", "1~65535 범위의 포트를 입력하세요.");
+                return;
+            }
+            runProxyAction(() -> proxyServer.rebind(port));
+        });
+    }
+
+    /**
+     * 시작/중지/재바인딩은 처리 중인 스트림을 기다릴 수 있으므로 FX 스레드 밖에서 실행
+     */
+    private void runProxyAction(Runnable action) {
+        toggleProxyButton.setDisable(true);
+        changePortButton.setDisable(true);
+        Task<Void> task = runInBackground(() -> {
+            action.run();
+            return null;
+        }, result -> { }, "프록시 오류");
+        task.runningProperty().addListener((observable, wasRunning, running) -> {
+            if (!running) {
+                toggleProxyButton.setDisable(false);
+                changePortButton.setDisable(false);
+                updateProxyStatus();
+            }
+        });
+    }
+
+    private void updateMetrics() {
+        MetricsSummary summary = proxyMetrics.getSummary();
+        CacheStats cache = responseCache.getStats();
+        long rps = summary.requests() - lastRequestCount;
+        lastRequestCount = summary.requests();
+        metricsLabel.setText(String.format(
+                "RPS: %d | TTFB p50 %.0fms / p99 %.0fms | 처리 중: %d | 오류: %d | 캐시 적중률: %.0f%%",
+                rps, summary.ttfbP50Millis(), summary.ttfbP99Millis(), summary.inFlight(),
+                summary.errors(), cache.hitRate() * 100));
+    }
+
     private void updateProxyStatus() {
         boolean running = proxyServer.isRunning();
         statusLabel.setText("프록시 상태: " + (running ? "✓ 실행 중" : "● 중지됨"));
+        portLabel.setText("포트: " + proxyServer.getPort());
 
         // 스타일 클래스 업데이트
         statusLabel.getStyleClass().clear();
@@ -240,30 +388,86 @@ public class MainWindow {
 
         dialog.setResultConverter(buttonType -> {
             if (buttonType == ButtonType.OK) {
-                return accountService.createAccount(
-                        nameField.getText(),
-                        urlField.getText(),
-                        apiKeyField.getText()
-                );
+                return new Account(nameField.getText(), urlField.getText(), apiKeyField.getText());
             }
             return null;
         });
 
-        dialog.showAndWait().ifPresent(account -> {
-            loadAccounts();
-            showInfo("성공", "계정이 추가되었습니다.");
-        });
+        dialog.showAndWait().ifPresent(input -> runInBackground(
+                () -> accountService.createAccount(input.getName(), input.getBaseUrl(), input.getApiKey()),
+                account -> {
+                    loadAccounts();
+                    showInfo("성공", "계정이 추가되었습니다.");
+                }, "계정 추가 실패"));
     }
 
     private void switchSelectedAccount() {
         Account selected = accountListView.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            accountService.switchAccount(selected.getId());
-            loadAccounts();
-            showInfo("성공", "계정이 활성화되었습니다.");
+        if (selected != null && !Boolean.TRUE.equals(selected.getPlaceholder())) {
+            runInBackground(() -> {
+                accountService.switchAccount(selected.getId());
+                return null;
+            }, result -> {
+                loadAccounts();
+                showInfo("성공", "계정이 활성화되었습니다.");
+            }, "계정 전환 실패");
         }
     }
 
+    private void showRoutingDialog() {
+        Account selected = accountListView.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            return;
+        }
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("라우팅 설정 - " + selected.getName());
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20));
+
+        CheckBox poolCheckBox = new CheckBox("로드 밸런싱/장애 조치 풀에 포함");
+        poolCheckBox.setSelected(Boolean.TRUE.equals(selected.getPoolEnabled()));
+        Spinner<Integer> weightSpinner = new Spinner<>(1, 100,
+                selected.getWeight() != null ? selected.getWeight() : 1);
+
+        // 0 이면 제한 없음
+        Spinner<Integer> rpmSpinner = new Spinner<>(0, 1_000_000, limitOf(selected.getRpmLimit()), 10);
+        Spinner<Integer> tpmSpinner = new Spinner<>(0, 100_000_000, limitOf(selected.getTpmLimit()), 1000);
+        Spinner<Integer> concurrencySpinner = new Spinner<>(0, 10_000, limitOf(selected.getMaxConcurrency()));
+        rpmSpinner.setEditable(true);
+        tpmSpinner.setEditable(true);
+        concurrencySpinner.setEditable(true);
+
+        grid.add(poolCheckBox, 0, 0, 2, 1);
+        grid.add(new Label("가중치:"), 0, 1);
+        grid.add(weightSpinner, 1, 1);
+        grid.add(new Label("분당 요청 수 (0 = 자동):"), 0, 2);
+        grid.add(rpmSpinner, 1, 2);
+        grid.add(new Label("분당 토큰 수 (0 = 자동):"), 0, 3);
+        grid.add(tpmSpinner, 1, 3);
+        grid.add(new Label("최대 동시 요청 (0 = 무제한):"), 0, 4);
+        grid.add(concurrencySpinner, 1, 4);
+
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+        dialog.showAndWait().filter(buttonType -> buttonType == ButtonType.OK).ifPresent(buttonType -> {
+            boolean poolEnabled = poolCheckBox.isSelected();
+            int weight = weightSpinner.getValue();
+            int rpmLimit = rpmSpinner.getValue();
+            int tpmLimit = tpmSpinner.getValue();
+            int maxConcurrency = concurrencySpinner.getValue();
+            runInBackground(() -> {
+                accountService.updateRouting(selected.getId(), poolEnabled, weight);
+                accountService.updateLimits(selected.getId(), rpmLimit, tpmLimit, maxConcurrency);
+                return null;
+            }, result -> loadAccounts(), "라우팅 설정 실패");
+        });
+    }
+
     private void deleteSelectedAccount() {
         Account selected = accountListView.getSelectionModel().getSelectedItem();
         if (selected != null) {
@@ -272,21 +476,86 @@ public class MainWindow {
                     ButtonType.YES, ButtonType.NO);
             alert.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.YES) {
-                    accountService.deleteAccount(selected.getId());
-                    loadAccounts();
+                    runInBackground(() -> {
+                        accountService.deleteAccount(selected.getId());
+                        return null;
+                    }, result -> loadAccounts(), "계정 삭제 실패");
                 }
             });
         }
     }
 
+    private void showExportDialog(Window owner) {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("사용량 내보내기");
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20));
+
+        LocalDate today = LocalDate.now();
+        DatePicker fromPicker = new DatePicker(today.withDayOfMonth(1));
+        DatePicker toPicker = new DatePicker(today);
+        ComboBox<UsageExportFormat> formatBox = new ComboBox<>();
+        formatBox.getItems().addAll(UsageExportFormat.values());
+        formatBox.setValue(UsageExportFormat.BINARY);
+
+        grid.add(new Label("시작일:"), 0, 0);
+        grid.add(fromPicker, 1, 0);
+        grid.add(new Label("종료일 (포함):"), 0, 1);
+        grid.add(toPicker, 1, 1);
+        grid.add(new Label("형식:"), 0, 2);
+        grid.add(formatBox, 1, 2);
+
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+        dialog.showAndWait().filter(buttonType -> buttonType == ButtonType.OK).ifPresent(buttonType -> {
+            LocalDate fromDate = fromPicker.getValue();
+            LocalDate toDate = toPicker.getValue();
+            UsageExportFormat format = formatBox.getValue();
+            if (fromDate == null || toDate == null || toDate.isBefore(fromDate)) {
+                showError("내보내기 실패", "기간이 올바르지 않습니다.");
+                return;
+            }
+
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("사용량 내보내기");
+            chooser.setInitialFileName("swiftcast-usage-" + fromDate + "_" + toDate + "." + format.getExtension());
+            File file = chooser.showSaveDialog(owner);
+            if (file == null) {
+                return;
+            }
+            ZoneId zone = ZoneId.systemDefault();
+            Instant from = fromDate.atStartOfDay(zone).toInstant();
+            Instant to = toDate.plusDays(1).atStartOfDay(zone).toInstant();
+            runInBackground(() -> usageExportService.exportTo(file.toPath(), format, from, to),
+                    rows -> showInfo("내보내기 완료", rows + "개 행을 저장했습니다."), "내보내기 실패");
+        });
+    }
+
+    private void importUsage(Window owner) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("사용량 가져오기 (여러 파일 선택 가능)");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("SwiftCast 사용량", "*.swu", "*.ndjson", "*.ndjson.gz"),
+                new FileChooser.ExtensionFilter("모든 파일", "*.*"));
+        List<File> files = chooser.showOpenMultipleDialog(owner);
+        if (files == null || files.isEmpty()) {
+            return;
+        }
+        runInBackground(() -> usageExportService.importFiles(files.stream().map(File::toPath).toList()),
+                result -> showInfo("가져오기 완료", String.format(
+                        "%d개 행 중 %d개를 추가했습니다 (보존 기간이 지난 %d개는 건너뜀, 나머지는 이미 있음).",
+                        result.read(), result.inserted(), result.expired())), "가져오기 실패");
+    }
+
     private void createBackup() {
-        try {
-            BackupInfo backup = backupService.backupClaudeSettings();
+        runInBackground(backupService::backupClaudeSettings, backup -> {
             loadBackups();
             showInfo("성공", "백업이 생성되었습니다.");
-        } catch (Exception e) {
-            showError("백업 실패", e.getMessage());
-        }
+        }, "백업 실패");
     }
 
     private void restoreSelectedBackup() {
@@ -297,12 +566,10 @@ public class MainWindow {
                     ButtonType.YES, ButtonType.NO);
             alert.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.YES) {
-                    try {
+                    runInBackground(() -> {
                         backupService.restoreClaudeSettings(selected.getFilename());
-                        showInfo("성공", "설정이 복원되었습니다. Claude Code를 재시작하세요.");
-                    } catch (Exception e) {
-                        showError("복원 실패", e.getMessage());
-                    }
+                        return null;
+                    }, result -> showInfo("성공", "설정이 복원되었습니다. Claude Code를 재시작하세요."), "복원 실패");
                 }
             });
         }
@@ -311,41 +578,69 @@ public class MainWindow {
     private void deleteSelectedBackup() {
         BackupInfo selected = backupListView.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            try {
+            runInBackground(() -> {
                 backupService.deleteBackup(selected.getFilename());
-                loadBackups();
-            } catch (Exception e) {
-                showError("삭제 실패", e.getMessage());
-            }
+                return null;
+            }, result -> loadBackups(), "삭제 실패");
         }
     }
 
+    /**
+     * 계정 목록은 메모리 스냅샷에서 읽는다 (JPA 초기화 전에도 즉시 표시)
+     */
     private void loadAccounts() {
-        List<Account> accounts = accountService.getAllAccounts();
+        List<Account> accounts = accountService.getSnapshot().accounts();
         Platform.runLater(() -> {
             accountListView.getItems().clear();
             accountListView.getItems().addAll(accounts);
         });
     }
 
-    private void loadBackups() {
-        try {
-            List<BackupInfo> backups = backupService.listBackups();
-            Platform.runLater(() -> {
-                backupListView.getItems().clear();
-                backupListView.getItems().addAll(backups);
-            });
-        } catch (Exception e) {
-            log.error("Failed to load backups", e);
+    @EventListener
+    public void onAccountsChanged(AccountSnapshot snapshot) {
+        // 창이 뜨기 전이면 무시 (start 에서 처음 로드)
+        if (accountListView != null) {
+            loadAccounts();
         }
     }
 
+    private void loadBackups() {
+        runInBackground(backupService::listBackups, backups -> {
+            backupListView.getItems().clear();
+            backupListView.getItems().addAll(backups);
+        }, "백업 목록 로드 실패");
+    }
+
+    /**
+     * 블로킹 작업을 가상 스레드 실행기에서 Task 로 실행하고, 결과/오류는 FX 스레드에서 처리한다.
+     */
+    private <T> Task<T> runInBackground(Callable<T> work, Consumer<T> onSuccess, String errorTitle) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+        task.setOnSucceeded(event -> onSuccess.accept(task.getValue()));
+        task.setOnFailed(event -> {
+            Throwable error = task.getException();
+            log.error("{}", errorTitle, error);
+            showError(errorTitle, error != null ? error.getMessage() : "");
+        });
+        blockingExecutor.execute(task);
+        return task;
+    }
+
     private String formatFileSize(long bytes) {
         if (bytes < 1024) return bytes + " B";
         if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
         return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
     }
 
+    private static int limitOf(Integer value) {
+        return value != null && value > 0 ? value : 0;
+    }
+
     private void showInfo(String title, String message) {
         Platform.runLater(() -> {
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
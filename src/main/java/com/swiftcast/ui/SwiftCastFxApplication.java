@@ -0,0 +1,47 @@
+package com.swiftcast.ui;
+
+import com.swiftcast.SwiftCastApplication;
+import com.swiftcast.startup.StartupTimeline;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.stage.Stage;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 데스크톱 모드 진입점. JavaFX 툴킷을 띄우고 그 안에서 Spring 컨텍스트를 시작한다.
+ * 헤드리스 빌드에서는 ui 패키지 전체가 제외되므로 SwiftCastApplication 이 리플렉션으로만 참조한다.
+ */
+public class SwiftCastFxApplication extends Application {
+
+    private static String[] args;
+    private ConfigurableApplicationContext springContext;
+
+    public static void launchDesktop(String[] args) {
+        SwiftCastFxApplication.args = args;
+        // JavaFX 애플리케이션 시작
+        Application.launch(SwiftCastFxApplication.class, args);
+    }
+
+    @Override
+    public void init() throws Exception {
+        // Spring Boot 컨텍스트 시작 (JavaFX 초기화 전)
+        springContext = SwiftCastApplication.createApplication().run(args);
+    }
+
+    @Override
+    public void start(Stage primaryStage) throws Exception {
+        // JavaFX UI 초기화
+        MainWindow mainWindow = springContext.getBean(MainWindow.class);
+        mainWindow.start(primaryStage);
+        StartupTimeline.mark("ui.shown");
+    }
+
+    @Override
+    public void stop() throws Exception {
+        // Spring 컨텍스트 종료
+        if (springContext != null) {
+            springContext.close();
+        }
+        Platform.exit();
+    }
+}